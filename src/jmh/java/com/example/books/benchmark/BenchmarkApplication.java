@@ -0,0 +1,88 @@
+package com.example.books.benchmark;
+
+import com.example.books.BooksApplication;
+import com.example.books.dto.BatchItemResult;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.BatchService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application against a private in-memory H2 database and fills it with a synthetic
+ * catalog of the requested size, one author per 20 books and 20 genres.
+ */
+final class BenchmarkApplication {
+
+    static final int GENRES = 20;
+    static final int BOOKS_PER_AUTHOR = 20;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType type, String... extraArgs) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--server.port=0"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(BooksApplication.class)
+                .web(type)
+                .run(args.toArray(String[]::new));
+    }
+
+    static Catalog seed(ConfigurableApplicationContext context, int books) {
+        BatchService batchService = context.getBean(BatchService.class);
+        AuthorRepository authorRepository = context.getBean(AuthorRepository.class);
+        GenreRepository genreRepository = context.getBean(GenreRepository.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+
+        List<Genre> genres = new ArrayList<>();
+        for (int i = 0; i < GENRES; i++) {
+            genres.add(genreRepository.save(new Genre("Genre " + i)));
+        }
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, books / BOOKS_PER_AUTHOR); i++) {
+            authors.add(new Author("Author " + i));
+        }
+        authors = authorRepository.saveAll(authors);
+
+        long[] ids = new long[books];
+        int created = 0;
+        while (created < books) {
+            int size = Math.min(BatchService.MAX_ITEMS, books - created);
+            List<Book> chunk = new ArrayList<>(size);
+            for (int i = created; i < created + size; i++) {
+                chunk.add(new Book("Title " + i, authors.get(i % authors.size()), genres.get(i % GENRES),
+                        5 + (i % 400) / 10.0, i % 7));
+            }
+            for (BatchItemResult result : batchService.create(chunk, bookRepository, Book::getId, Book::setId)) {
+                ids[created++] = result.getId();
+            }
+        }
+        return new Catalog(ids, authors.stream().mapToLong(Author::getId).toArray(),
+                genres.stream().mapToLong(Genre::getId).toArray());
+    }
+
+    /**
+     * Ids of the seeded rows, for benchmarks that pick random keys.
+     */
+    record Catalog(long[] bookIds, long[] authorIds, long[] genreIds) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.books.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full request handling through the three controllers (dispatch, database or cache, Jackson)
+ * via MockMvc, so no socket or Tomcat thread pool is measured. {@code GET /books/{id}} is
+ * mostly answered by the {@code books} cache once warmed up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ControllerBenchmark {
+
+    @Param("1000")
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private BenchmarkApplication.Catalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        catalog = BenchmarkApplication.seed(context, books);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listBooks() throws Exception {
+        return get("/books?limit=100");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getBook() throws Exception {
+        return get("/books/" + random(catalog.bookIds()));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listAuthors() throws Exception {
+        return get("/authors?limit=100");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getAuthor() throws Exception {
+        return get("/authors/" + random(catalog.authorIds()));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listGenres() throws Exception {
+        return get("/genres");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getGenre() throws Exception {
+        return get("/genres/" + random(catalog.genreIds()));
+    }
+
+    private static long random(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private MockHttpServletResponse get(String uri) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get(uri)).andReturn().getResponse();
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException(uri + " returned " + response.getStatus());
+        }
+        return response;
+    }
+}
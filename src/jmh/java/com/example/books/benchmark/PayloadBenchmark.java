@@ -0,0 +1,78 @@
+package com.example.books.benchmark;
+
+import com.example.books.dto.BookView;
+import com.example.books.dto.CompactBookPage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost and size of one page of {@code GET /books} in each encoding the controller can send:
+ * today's JSON, the same JSON gzipped the way Tomcat compresses it, and the normalized CBOR page.
+ * {@code CompactEncodingTest} checks how much smaller the gzipped and CBOR pages are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PayloadBenchmark {
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private ObjectWriter jsonWriter;
+    private ObjectWriter cborWriter;
+    private List<BookView> views;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(new TypeReference<List<BookView>>() { });
+        cborWriter = Jackson2ObjectMapperBuilder.cbor().build().writerFor(CompactBookPage.class);
+
+        // Same shape as a real page: far fewer authors and genres than books.
+        views = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            views.add(new BookView((long) i, "Title " + i, (long) i / 5, "Author " + i / 5, (long) i % 10,
+                    "Genre " + i % 10, 5 + i / 10.0, i % 7, 1L));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] writeJsonGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            jsonWriter.writeValue(gzip, views);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeCbor() throws IOException {
+        return cborWriter.writeValueAsBytes(CompactBookPage.of(views));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.books.benchmark;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of a page of books, as entity graphs and as the flat {@link BookView} projection,
+ * with the mapper configured the way Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    @Param("100")
+    public int pageSize;
+
+    private ObjectWriter bookWriter;
+    private ObjectWriter viewWriter;
+    private ObjectReader bookReader;
+    private List<Book> books;
+    private List<BookView> views;
+    private byte[] booksJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookWriter = objectMapper.writerFor(new TypeReference<List<Book>>() { });
+        viewWriter = objectMapper.writerFor(new TypeReference<List<BookView>>() { });
+        bookReader = objectMapper.readerFor(new TypeReference<List<Book>>() { });
+
+        books = new ArrayList<>(pageSize);
+        views = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Author author = new Author((long) i / 5, "Author " + i / 5);
+            Genre genre = new Genre((long) i % 10, "Genre " + i % 10);
+            Book book = new Book((long) i, "Title " + i, author, genre, 5 + i / 10.0, i % 7);
+            book.setVersion(1L);
+            books.add(book);
+            views.add(new BookView(book.getId(), book.getTitle(), author.getId(), author.getName(), genre.getId(),
+                    genre.getName(), book.getPrice(), book.getQuantityAvailable(), book.getVersion()));
+        }
+        booksJson = bookWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeBooks() throws IOException {
+        return bookWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeViews() throws IOException {
+        return viewWriter.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public List<Book> readBooks() throws IOException {
+        return bookReader.readValue(booksJson);
+    }
+}
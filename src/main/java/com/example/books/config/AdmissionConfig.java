@@ -0,0 +1,43 @@
+package com.example.books.config;
+
+import com.example.books.service.AdmissionControl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts {@link AdmissionFilter} in front of the catalog endpoints, unless
+ * {@code books.admission.enabled} is off. It runs before {@link IdempotencyFilter}, so that a
+ * refused request does not claim its key.
+ */
+@Configuration
+@ConditionalOnProperty(name = "books.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionControl admission, MeterRegistry registry,
+                                                                   @Value("${books.admission.list-weight:8}") int listWeight,
+                                                                   @Value("${books.admission.client-header:}") String clientHeader) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionFilter(admission, registry, listWeight, clientHeader));
+        registration.addUrlPatterns("/books/*", "/authors/*", "/genres/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionControl admission) {
+        return registry -> {
+            Gauge.builder("books.admission.in.flight", admission, AdmissionControl::inFlight)
+                    .description("Cost of the requests admitted and still running").register(registry);
+            Gauge.builder("books.admission.clients", admission, AdmissionControl::clients)
+                    .description("Clients with a rate limit bucket of their own").register(registry);
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.books.config;
+
+import com.example.books.service.AdmissionControl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asks {@link AdmissionControl} before a request reaches the controllers, and answers
+ * {@code 429} when the client is over its rate or {@code 503} when the server is busy, both with
+ * {@code Retry-After} in whole seconds. A request costs one token and one unit of concurrency,
+ * except for lists, searches, exports, imports and batches, which cost
+ * {@code books.admission.list-weight}.
+ * <p>
+ * Clients are told apart by the header named in {@code books.admission.client-header} when it
+ * is set and sent, and by their address otherwise; behind a proxy, set
+ * {@code server.forward-headers-strategy} so that the address is the client's. Asynchronous
+ * requests such as the export hold their share until the response completes.
+ */
+class AdmissionFilter extends OncePerRequestFilter {
+
+    static final String REQUESTS = "books.admission.requests";
+
+    private static final Set<String> BULK = Set.of("search", "export", "import", "batch");
+
+    private final AdmissionControl admission;
+    private final int listWeight;
+    private final String clientHeader;
+    private final Map<AdmissionControl.Outcome, Counter> single = new EnumMap<>(AdmissionControl.Outcome.class);
+    private final Map<AdmissionControl.Outcome, Counter> bulk = new EnumMap<>(AdmissionControl.Outcome.class);
+
+    AdmissionFilter(AdmissionControl admission, MeterRegistry registry, int listWeight, String clientHeader) {
+        this.admission = admission;
+        this.listWeight = listWeight;
+        this.clientHeader = clientHeader;
+        for (AdmissionControl.Outcome outcome : AdmissionControl.Outcome.values()) {
+            single.put(outcome, counter(registry, outcome, "single"));
+            bulk.put(outcome, counter(registry, outcome, "list"));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int cost = cost(request);
+        AdmissionControl.Decision decision = admission.admit(client(request), cost);
+        (cost > 1 ? bulk : single).get(decision.outcome()).increment();
+        if (decision.outcome() != AdmissionControl.Outcome.ADMITTED) {
+            long nanos = decision.retryAfter().toNanos();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (nanos + 999_999_999) / 1_000_000_000)));
+            if (decision.outcome() == AdmissionControl.Outcome.RATE_LIMITED) {
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Request rate limit exceeded");
+            } else {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in progress");
+            }
+            return;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Release(cost, released));
+            } else if (released.compareAndSet(false, true)) {
+                admission.release(cost);
+            }
+        }
+    }
+
+    private int cost(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int slash = path.indexOf('/', 1);
+        String rest = slash < 0 ? "" : path.substring(slash + 1);
+        boolean list = rest.isEmpty() ? request.getMethod().equals("GET") : BULK.contains(rest);
+        return list ? listWeight : 1;
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    private static Counter counter(MeterRegistry registry, AdmissionControl.Outcome outcome, String endpoint) {
+        return Counter.builder(REQUESTS)
+                .description("Requests admitted and refused by admission control")
+                .tag("outcome", outcome.name().toLowerCase())
+                .tag("endpoint", endpoint)
+                .register(registry);
+    }
+
+    private final class Release implements AsyncListener {
+
+        private final int cost;
+        private final AtomicBoolean released;
+
+        Release(int cost, AtomicBoolean released) {
+            this.cost = cost;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                admission.release(cost);
+            }
+        }
+    }
+}
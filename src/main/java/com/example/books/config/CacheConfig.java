@@ -0,0 +1,16 @@
+package com.example.books.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Spring cache abstraction on top of the JCache (Ehcache) manager configured in
+ * {@code ehcache.xml}, which also backs the Hibernate second-level cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** {@link com.example.books.dto.BookView}s by book id, read through by GET /books/{id}. */
+    public static final String BOOKS = "books";
+}
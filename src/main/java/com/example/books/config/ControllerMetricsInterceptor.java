@@ -0,0 +1,77 @@
+package com.example.books.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Records a latency histogram and the number of SQL statements for every handler method of the
+ * controllers in {@value #CONTROLLER_PACKAGE}, tagged by controller, method and outcome.
+ * <p>
+ * Asynchronous handlers such as the export are timed until the response completes. Their
+ * statements run on another thread and are not counted.
+ */
+class ControllerMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    static final String REQUESTS = "books.controller.requests";
+    static final String SQL_STATEMENTS = "books.controller.sql.statements";
+
+    private static final String CONTROLLER_PACKAGE = "com.example.books.controller";
+    private static final String SAMPLE = ControllerMetricsInterceptor.class.getName() + ".sample";
+    private static final String STATEMENTS = ControllerMetricsInterceptor.class.getName() + ".statements";
+
+    private final MeterRegistry registry;
+
+    ControllerMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch that completes a request passes through here a second time.
+        if (isController(handler) && request.getAttribute(SAMPLE) == null) {
+            request.setAttribute(SAMPLE, Timer.start(registry));
+            request.setAttribute(STATEMENTS, new Statements(Thread.currentThread(), SqlStatementCounter.current()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SAMPLE) instanceof Timer.Sample sample)) {
+            return;
+        }
+        request.removeAttribute(SAMPLE);
+        HandlerMethod method = (HandlerMethod) handler;
+        Tags tags = Tags.of("controller", method.getBeanType().getSimpleName(), "method", method.getMethod().getName());
+        sample.stop(Timer.builder(REQUESTS)
+                .description("Latency of controller handler methods")
+                .tags(tags)
+                .tag("status", Integer.toString(response.getStatus()))
+                .tag("exception", ex != null ? ex.getClass().getSimpleName() : "none")
+                .publishPercentileHistogram()
+                .register(registry));
+        if (request.getAttribute(STATEMENTS) instanceof Statements statements
+                && statements.thread() == Thread.currentThread()) {
+            DistributionSummary.builder(SQL_STATEMENTS)
+                    .description("SQL statements prepared per request")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(SqlStatementCounter.current() - statements.before());
+        }
+    }
+
+    private static boolean isController(Object handler) {
+        return handler instanceof HandlerMethod method
+                && method.getBeanType().getPackageName().equals(CONTROLLER_PACKAGE);
+    }
+
+    private record Statements(Thread thread, long before) {
+    }
+}
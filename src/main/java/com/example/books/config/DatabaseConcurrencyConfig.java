@@ -0,0 +1,57 @@
+package com.example.books.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Bounds the number of threads using the database at once when {@code books.db.max-concurrency}
+ * is set. With virtual threads there is no worker pool left to cap request concurrency, so
+ * without this every in-flight request would pile up inside the connection pool and fail at its
+ * {@code connectionTimeout}. Keep the limit at or below
+ * {@code spring.datasource.hikari.maximum-pool-size}.
+ */
+@Configuration
+public class DatabaseConcurrencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "books.db.max-concurrency")
+    static BeanPostProcessor databaseConcurrencyLimiter(Environment environment) {
+        int maxConcurrency = environment.getRequiredProperty("books.db.max-concurrency", Integer.class);
+        long acquireTimeoutMillis = environment.getProperty("books.db.acquire-timeout-ms", Long.class, 30_000L);
+        return new LimitingPostProcessor(maxConcurrency, acquireTimeoutMillis);
+    }
+
+    private static final class LimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int maxConcurrency;
+        private final long acquireTimeoutMillis;
+
+        LimitingPostProcessor(int maxConcurrency, long acquireTimeoutMillis) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("books.db.max-concurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            // Wrap last, outside any other DataSource decoration.
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
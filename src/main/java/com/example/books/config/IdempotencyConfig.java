@@ -0,0 +1,23 @@
+package com.example.books.config;
+
+import com.example.books.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts {@link IdempotencyFilter} in front of the catalog write endpoints.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store,
+                                                                       @Value("${books.idempotency.max-body-bytes:1048576}") int maxBodyBytes) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(store, maxBodyBytes));
+        registration.addUrlPatterns("/books/*", "/authors/*", "/genres/*");
+        return registration;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.books.config;
+
+import com.example.books.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Applies {@value #HEADER} to the create and update endpoints (every {@code POST}, {@code PUT}
+ * and {@code PATCH} except the CSV import, whose body is streamed). The first request with a key
+ * runs and its successful response is stored; retries get that response back with
+ * {@value #REPLAYED_HEADER} set, and nothing is written again.
+ * <p>
+ * A key is bound to a SHA-256 fingerprint of the method, path, query and body: reusing it for a
+ * different request gets {@code 422}. A retry that arrives while the first request still runs
+ * gets {@code 409} with {@code Retry-After}. The body is read into memory for the fingerprint, so
+ * requests over {@code books.idempotency.max-body-bytes} get {@code 413} when they carry a key.
+ */
+class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final int maxBodyBytes;
+
+    IdempotencyFilter(IdempotencyStore store, int maxBodyBytes) {
+        this.store = store;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(HEADER) == null
+                || !(method.equals("POST") || method.equals("PUT") || method.equals("PATCH"))
+                || request.getRequestURI().endsWith("/import");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getContentLengthLong() > maxBodyBytes ? null
+                : request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body == null || body.length > maxBodyBytes) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "Requests with " + HEADER + " may have at most " + maxBodyBytes + " bytes of body");
+            return;
+        }
+        IdempotencyStore.Claim claim = store.claim(key, fingerprint(request, body));
+        switch (claim.outcome()) {
+            case REPLAY -> replay(claim.response(), response);
+            case MISMATCH -> response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    HEADER + " was already used for a different request");
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + HEADER + " is in progress");
+            }
+            case EXECUTE -> execute(key, new BufferedRequest(request, body), response, chain);
+        }
+    }
+
+    private void execute(String key, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, captured);
+            if (HttpStatus.valueOf(captured.getStatus()).is2xxSuccessful()) {
+                store.complete(key, new IdempotencyStore.Response(captured.getStatus(), captured.getContentType(),
+                        headers(captured), captured.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key);
+            }
+        }
+        captured.copyBodyToResponse();
+    }
+
+    private static void replay(IdempotencyStore.Response stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        String[] headers = stored.headers();
+        for (int i = 0; i < headers.length; i += 2) {
+            response.addHeader(headers[i], headers[i + 1]);
+        }
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static String[] headers(HttpServletResponse response) {
+        List<String> headers = new ArrayList<>();
+        for (String name : response.getHeaderNames()) {
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE) || name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                continue;
+            }
+            for (String value : response.getHeaders(name)) {
+                headers.add(name);
+                headers.add(value);
+            }
+        }
+        return headers.toArray(String[]::new);
+    }
+
+    private static byte[] fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String target = request.getMethod() + ' ' + request.getRequestURI() + '?'
+                + Objects.toString(request.getQueryString(), "") + '\n';
+        digest.update(target.getBytes(StandardCharsets.UTF_8));
+        return digest.digest(body);
+    }
+
+    /**
+     * Serves the body that was read for the fingerprint.
+     */
+    private static final class BufferedRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The whole body is in memory, so it is available at once.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    Objects.requireNonNull(readListener, "readListener");
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.books.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends reads to read replicas when {@code books.datasource.replica.urls} lists at least one
+ * JDBC URL; see {@link ReplicaRoutingDataSource} for what counts as a read. Replicas share the
+ * primary's credentials unless {@code books.datasource.replica.username}/{@code password} are
+ * set. {@code books.datasource.replica.sticky-ms} keeps a client on the primary for that long
+ * after each of its writes.
+ * <p>
+ * The caches in {@code ehcache.xml} are filled from whichever database served the miss, so a
+ * lagging replica can leave an entry stale until it expires; keep replication lag well below
+ * those TTLs.
+ */
+@Configuration
+@ConditionalOnProperty(name = "books.datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    static BeanPostProcessor replicaRouter(Environment environment) {
+        return new RoutingPostProcessor(environment);
+    }
+
+    @Bean
+    public WebMvcConfigurer replicaRouting(Environment environment) {
+        long stickyMillis = environment.getProperty("books.datasource.replica.sticky-ms", Long.class, 0L);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(new ReplicaRoutingInterceptor(stickyMillis))
+                        .addPathPatterns("/books/**", "/authors/**", "/genres/**");
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(DataSource dataSource) throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        return registry -> {
+            FunctionCounter.builder("books.datasource.connections", routing, ReplicaRoutingDataSource::primaryConnections)
+                    .description("Connections handed out by target").tag("target", "primary").register(registry);
+            FunctionCounter.builder("books.datasource.connections", routing, ReplicaRoutingDataSource::replicaConnections)
+                    .description("Connections handed out by target").tag("target", "replica").register(registry);
+            FunctionCounter.builder("books.datasource.failovers", routing, ReplicaRoutingDataSource::failovers)
+                    .description("Reads sent to the primary because a replica failed").register(registry);
+            for (HikariDataSource replica : routing.replicaDataSources()) {
+                String pool = replica.getPoolName();
+                Gauge.builder("books.datasource.replica.healthy", routing, r -> r.replicaHealth().get(pool) ? 1 : 0)
+                        .tag("pool", pool).register(registry);
+                // Boot only binds pool gauges for DataSource beans; the replicas are not beans.
+                Gauge.builder("hikaricp.connections.active", replica, r -> poolValue(r, Pool.ACTIVE))
+                        .tag("pool", pool).register(registry);
+                Gauge.builder("hikaricp.connections.idle", replica, r -> poolValue(r, Pool.IDLE))
+                        .tag("pool", pool).register(registry);
+                Gauge.builder("hikaricp.connections.pending", replica, r -> poolValue(r, Pool.PENDING))
+                        .tag("pool", pool).register(registry);
+                Gauge.builder("hikaricp.connections.max", replica, HikariDataSource::getMaximumPoolSize)
+                        .tag("pool", pool).register(registry);
+            }
+        };
+    }
+
+    private enum Pool {
+        ACTIVE, IDLE, PENDING
+    }
+
+    private static double poolValue(HikariDataSource replica, Pool value) {
+        if (replica.getHikariPoolMXBean() == null) {
+            return 0;
+        }
+        return switch (value) {
+            case ACTIVE -> replica.getHikariPoolMXBean().getActiveConnections();
+            case IDLE -> replica.getHikariPoolMXBean().getIdleConnections();
+            case PENDING -> replica.getHikariPoolMXBean().getThreadsAwaitingConnection();
+        };
+    }
+
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        RoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof RoutingProxy) {
+                return bean;
+            }
+            String[] urls = environment.getRequiredProperty("books.datasource.replica.urls", String[].class);
+            String username = environment.getProperty("books.datasource.replica.username",
+                    environment.getProperty("spring.datasource.username"));
+            String password = environment.getProperty("books.datasource.replica.password",
+                    environment.getProperty("spring.datasource.password"));
+            List<HikariDataSource> replicas = new ArrayList<>();
+            for (int i = 0; i < urls.length; i++) {
+                HikariDataSource replica = new HikariDataSource();
+                replica.setPoolName("replica-" + i);
+                replica.setJdbcUrl(urls[i].trim());
+                replica.setUsername(username);
+                replica.setPassword(password);
+                replica.setReadOnly(true);
+                replica.setMaximumPoolSize(environment.getProperty("books.datasource.replica.maximum-pool-size",
+                        Integer.class, 10));
+                // Fail over quickly instead of holding a read for the primary's 30 s default.
+                replica.setConnectionTimeout(environment.getProperty("books.datasource.replica.connection-timeout-ms",
+                        Long.class, 2_000L));
+                replicas.add(replica);
+            }
+            long healthCheckInterval = environment.getProperty("books.datasource.replica.health-check-interval-ms",
+                    Long.class, 5_000L);
+            return new RoutingProxy(new ReplicaRoutingDataSource(primary, replicas, healthCheckInterval));
+        }
+
+        @Override
+        public int getOrder() {
+            // Inside the concurrency limiter, which counts connections across all targets.
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+
+    /**
+     * Defers taking the physical connection until the first statement, when the transaction's
+     * read-only flag is known. Closes the replicas and the primary with the context.
+     */
+    private static final class RoutingProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final ReplicaRoutingDataSource routing;
+
+        RoutingProxy(ReplicaRoutingDataSource routing) {
+            super(routing);
+            this.routing = routing;
+        }
+
+        @Override
+        public void close() {
+            routing.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.books.config;
+
+/**
+ * Per-thread routing decision for the duration of a web request. While set it takes precedence
+ * over the read-only flag of the current transaction, because with open-in-view the connection
+ * taken by the first query of a request is kept for all of its later transactions.
+ */
+final class ReadRouting {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Target> CURRENT = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    static Target current() {
+        return CURRENT.get();
+    }
+
+    static void set(Target target) {
+        CURRENT.set(target);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
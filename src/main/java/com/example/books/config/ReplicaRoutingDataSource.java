@@ -0,0 +1,193 @@
+package com.example.books.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes connections to the primary or, for reads, to one of the healthy replicas in turn.
+ * <p>
+ * A read is a connection taken during a web request that {@link ReplicaRoutingInterceptor}
+ * marked as one. Outside requests, it is a connection taken inside a read-only transaction. The
+ * transaction flag is only known once the transaction has started, so this data source must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ * <p>
+ * Replicas are validated every {@code healthCheckIntervalMillis}; unhealthy ones get no reads
+ * until a later check passes. A replica that fails to hand out a connection is marked unhealthy
+ * on the spot, and the read goes to the primary instead. With no healthy replica all reads go to
+ * the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final ScheduledExecutorService healthChecks;
+
+    ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, long healthCheckIntervalMillis) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the current request has been routed to a replica, for callers that share read
+     * results between requests and must keep them apart from reads pinned to the primary.
+     */
+    public static boolean routesReadsToReplica() {
+        return ReadRouting.current() == ReadRouting.Target.REPLICA;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        ReadRouting.Target target = ReadRouting.current();
+        boolean read = target != null
+                ? target == ReadRouting.Target.REPLICA
+                : TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (read) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.healthy) {
+                    return replica.name;
+                }
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        Replica replica = replicas.stream().filter(candidate -> candidate.name.equals(key)).findFirst().orElseThrow();
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            markUnhealthy(replica, e);
+            failovers.increment();
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Validates every replica once; runs on a schedule and may be called to re-check on demand.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            SQLException failure = null;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+                if (!valid) {
+                    // A pooled connection to a replica that has since restarted; let the next check open a new one.
+                    replica.dataSource.evictConnection(connection);
+                }
+            } catch (SQLException e) {
+                valid = false;
+                failure = e;
+            }
+            if (valid && !replica.healthy) {
+                log.info("Replica {} is healthy again", replica.name);
+                replica.healthy = true;
+            } else if (!valid) {
+                markUnhealthy(replica, failure);
+            }
+        }
+    }
+
+    public Map<String, Boolean> replicaHealth() {
+        Map<String, Boolean> health = new HashMap<>();
+        replicas.forEach(replica -> health.put(replica.name, replica.healthy));
+        return health;
+    }
+
+    long primaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    long replicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    long failovers() {
+        return failovers.sum();
+    }
+
+    List<HikariDataSource> replicaDataSources() {
+        return replicas.stream().map(replica -> replica.dataSource).toList();
+    }
+
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+        if (primary instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the primary data source", e);
+            }
+        }
+    }
+
+    private static void markUnhealthy(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Replica {} is unhealthy, reading from the primary until it recovers", replica.name, cause);
+            replica.healthy = false;
+        }
+    }
+
+    private static final class Replica {
+
+        final String name;
+        final HikariDataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.books.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Sends {@code GET} and {@code HEAD} requests to the replicas and everything else to the primary.
+ * <p>
+ * With a positive {@code stickyMillis}, every write sets the {@value #STICKY_COOKIE} cookie, and
+ * reads carrying an unexpired one stay on the primary, so a client reads its own writes while
+ * the replicas catch up. The cookie holds the expiry in epoch milliseconds, which keeps
+ * stickiness working across application instances.
+ */
+class ReplicaRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    static final String STICKY_COOKIE = "books-primary-until";
+
+    private final long stickyMillis;
+
+    ReplicaRoutingInterceptor(long stickyMillis) {
+        this.stickyMillis = stickyMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (!read && stickyMillis > 0) {
+            Cookie cookie = new Cookie(STICKY_COOKIE, Long.toString(System.currentTimeMillis() + stickyMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (stickyMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        ReadRouting.set(read && !isSticky(request) ? ReadRouting.Target.REPLICA : ReadRouting.Target.PRIMARY);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadRouting.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadRouting.clear();
+    }
+
+    private boolean isSticky(HttpServletRequest request) {
+        if (stickyMillis <= 0 || request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (STICKY_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
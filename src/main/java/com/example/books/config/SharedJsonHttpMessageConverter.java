@@ -0,0 +1,53 @@
+package com.example.books.config;
+
+import com.example.books.dto.SharedJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link SharedJson} bodies as their shared JSON bytes. Registered ahead of the Jackson
+ * converter, which still handles them for any other JSON-like media type through
+ * {@code @JsonValue}.
+ */
+@Component
+public class SharedJsonHttpMessageConverter extends AbstractHttpMessageConverter<SharedJson<?>> {
+
+    private final ObjectMapper objectMapper;
+
+    public SharedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SharedJson.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SharedJson<?> readInternal(Class<? extends SharedJson<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("SharedJson is write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(SharedJson<?> body, MediaType contentType) throws IOException {
+        return (long) body.json(objectMapper).length;
+    }
+
+    @Override
+    protected void writeInternal(SharedJson<?> body, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(body.json(objectMapper));
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.books.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on each thread, so that a request can report how
+ * many it issued. The SQL itself is passed through unchanged.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Statements prepared on the current thread so far; only differences between two calls on
+     * the same thread are meaningful.
+     */
+    public static long current() {
+        return STATEMENTS.get()[0];
+    }
+}
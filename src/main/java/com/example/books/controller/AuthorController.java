@@ -1,12 +1,34 @@
 package com.example.books.controller;
 
+import com.example.books.config.CacheConfig;
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.CatalogStats;
+import com.example.books.dto.SharedJson;
 import com.example.books.model.Author;
+import com.example.books.model.CatalogChange;
 import com.example.books.repository.AuthorRepository;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.CatalogStatsService;
+import com.example.books.service.BookSearchIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/authors")
@@ -14,46 +36,201 @@ public class AuthorController {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Value("${books.http.coalesce-reads:true}")
+    private boolean coalesceReads;
+
+    private final SingleFlight<Long, SharedJson<Author>> authorReads = new SingleFlight<>();
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private ListResponseCache listCache;
+
+    /**
+     * Pages are answered from {@link ListResponseCache} until the catalog changes. The cache writes
+     * the response itself, and the method then returns {@code null}, which Spring MVC takes for a
+     * request that has been handled; otherwise the page is returned as usual.
+     */
     @GetMapping
-    public List<Author> getAllAuthors() {
-        return authorRepository.findAll();
+    public ResponseEntity<List<Author>> getAllAuthors(@RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      HttpServletRequest request,
+                                                      HttpServletResponse response) throws IOException {
+        int pageSize = KeysetPage.limit(limit);
+        long position = KeysetPage.after(after, cursor);
+        Supplier<ResponseEntity<List<Author>>> page = () -> KeysetPage.of(
+                authorRepository.findByIdGreaterThanOrderByIdAsc(position, Limit.of(pageSize + 1)), pageSize, Author::getId);
+        return listCache.write(request, response, page) ? null : page.get();
     }
 
+    /**
+     * Concurrent requests for the same author share one load and one JSON encoding.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Author> getAuthorById(@PathVariable(value = "id") Long id) {
-        Author author = authorRepository.findById(id).orElse(null);
+    public ResponseEntity<SharedJson<Author>> getAuthorById(@PathVariable(value = "id") Long id) {
+        Supplier<SharedJson<Author>> load = () -> authorRepository.findById(id).map(SharedJson::new).orElse(null);
+        SharedJson<Author> author = coalesceReads ? authorReads.load(id, load) : load.get();
         if (author != null) {
-            return ResponseEntity.ok(author);
+            return IfMatch.ok(author, author.getValue().getVersion());
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Book count, stock and stock value of the author's books, from running totals.
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CatalogStats> getAuthorStats(@PathVariable Long id) {
+        if (authorRepository.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(catalogStats.author(id));
+    }
+
     @PostMapping
     public Author createAuthor(@RequestBody Author author) {
-        return authorRepository.save(author);
+        Author saved = authorRepository.save(author);
+        listCache.catalogChanged();
+        return saved;
+    }
+
+    /**
+     * Returns the author with this name in any case, creating it when there is none: {@code 201}
+     * if it was created, {@code 200} if it already existed. An id is only drawn when the name is
+     * not found, and the insert is then a single insert-if-absent statement on the unique name
+     * index, so concurrent calls with one name create one author.
+     */
+    @PutMapping("/by-name/{name}")
+    public ResponseEntity<Author> upsertAuthorByName(@PathVariable String name) {
+        if (name.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long existingId = authorRepository.findIdByName(name);
+        Author existing = existingId != null ? authorRepository.findById(existingId).orElse(null) : null;
+        if (existing != null) {
+            return IfMatch.ok(existing, existing.getVersion());
+        }
+        long id = authorRepository.nextId();
+        boolean created = changeLog.recordUpdate(CatalogChange.Type.AUTHOR, id,
+                () -> authorRepository.insertIfAbsent(id, name) == id ? 1 : 0) > 0;
+        Author author = authorRepository.findByName(name).orElse(null);
+        if (author == null) {
+            // deleted in between
+            return ResponseEntity.notFound().build();
+        }
+        if (!created) {
+            return IfMatch.ok(author, author.getVersion());
+        }
+        listCache.catalogChanged();
+        // The insert bypasses the entity listener that maintains the search index.
+        bookSearchIndex.putAuthor(author.getId(), author.getName());
+        return IfMatch.created(URI.create("/authors/" + id), author, author.getVersion());
     }
 
     @PutMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
     public ResponseEntity<Author> updateAuthor(@PathVariable Long id, @RequestBody Author updatedAuthor) {
         Author author = authorRepository.findById(id).orElse(null);
         if (author != null) {
-            author.setName(updatedAuthor.getName());
+            copyFields(author, updatedAuthor);
             authorRepository.save(author);
+            authorReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.ok(author);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MergePatch.MEDIA_TYPE})
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public ResponseEntity<Author> patchAuthor(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody Map<String, Object> patch) {
+        Long expectedVersion = IfMatch.expectedVersion(ifMatch);
+        if (changeLog.recordUpdate(CatalogChange.Type.AUTHOR, id,
+                () -> authorRepository.rename(id, MergePatch.name(patch), expectedVersion)) == 0) {
+            return ResponseEntity.status(authorRepository.existsById(id) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND)
+                    .build();
+        }
+        authorReads.forget(id);
+        listCache.catalogChanged();
+        Author author = authorRepository.findById(id).orElse(null);
+        if (author == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // The update statement bypasses the entity listener that maintains the search index.
+        bookSearchIndex.putAuthor(id, author.getName());
+        return IfMatch.ok(author, author.getVersion());
+    }
+
+    @PostMapping("/batch")
+    public List<BatchItemResult> createAuthors(@RequestBody List<Author> authors) {
+        List<BatchItemResult> results = batchService.create(authors, authorRepository, Author::getId, Author::setId);
+        listCache.catalogChanged();
+        return results;
+    }
+
+    @PutMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> updateAuthors(@RequestBody List<Author> authors) {
+        List<BatchItemResult> results = batchService.update(authors, authorRepository, Author::getId, AuthorController::copyFields);
+        authorReads.forgetAll();
+        listCache.catalogChanged();
+        return results;
+    }
+
+    @DeleteMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> deleteAuthors(@RequestBody List<Long> ids) {
+        List<BatchItemResult> results = batchService.delete(ids, authorRepository, Author::getId);
+        authorReads.forgetAll();
+        listCache.catalogChanged();
+        // deleteAllByIdInBatch bypasses the entity listener that maintains the search index.
+        results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.DELETED)
+                .forEach(result -> bookSearchIndex.removeAuthor(result.getId()));
+        return results;
+    }
+
     @DeleteMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
     public ResponseEntity<Author> deleteAuthor(@PathVariable Long id) {
         Author author = authorRepository.findById(id).orElse(null);
         if (author != null) {
             authorRepository.delete(author);
+            authorReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Answers {@code 409} when another author already has the name, in some case. Other integrity
+     * violations are not a taken name and are left to the default handling.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> handleDuplicateName(DataIntegrityViolationException e) {
+        if (!Constraints.violated(e, "uk_authors_name_key")) {
+            throw e;
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    private static void copyFields(Author author, Author updatedAuthor) {
+        author.setName(updatedAuthor.getName());
+    }
 }
@@ -1,30 +1,228 @@
 package com.example.books.controller;
 
+import com.example.books.config.CacheConfig;
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.BookView;
+import com.example.books.dto.CatalogSummary;
+import com.example.books.dto.CompactBookPage;
+import com.example.books.dto.ImportProgress;
+import com.example.books.dto.SharedJson;
 import com.example.books.model.Book;
+import com.example.books.model.CatalogChange;
 import com.example.books.repository.BookRepository;
+import com.example.books.repository.BookSort;
+import com.example.books.repository.BookSpecifications;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.BookExportService;
+import com.example.books.service.BookSearchIndex;
+import com.example.books.service.CatalogImportService;
+import com.example.books.service.CatalogStatsService;
+import com.example.books.service.InventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/books")
 public class BookController {
 
+    /** Patched fields that move a book between stats groups or change what it adds to them. */
+    private static final Set<String> STATS_FIELDS = Set.of("author", "genre", "price", "quantityAvailable");
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ListResponseCache listCache;
+
+    @Value("${books.http.etag:true}")
+    private boolean etagEnabled;
+
+    @Value("${books.http.coalesce-reads:true}")
+    private boolean coalesceReads;
+
+    @Value("${books.export.timeout:1h}")
+    private Duration exportTimeout;
+
+    @Value("${books.import.timeout:1h}")
+    private Duration importTimeout;
+
+    private final SingleFlight<Long, SharedJson<BookView>> bookReads = new SingleFlight<>();
+
+    /**
+     * Pages are answered from {@link ListResponseCache} until the catalog changes. The cache writes
+     * the response itself, and the method then returns {@code null}, which Spring MVC takes for a
+     * request that has been handled; otherwise the page is returned as usual.
+     */
     @GetMapping
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    public ResponseEntity<List<BookView>> getAllBooks(@RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) Long genreId,
+                                                      @RequestParam(required = false) Long authorId,
+                                                      @RequestParam(required = false) Double minPrice,
+                                                      @RequestParam(required = false) Double maxPrice,
+                                                      @RequestParam(required = false) Boolean inStock,
+                                                      @RequestParam(required = false) String sort,
+                                                      HttpServletRequest request,
+                                                      HttpServletResponse response) throws IOException {
+        Supplier<ResponseEntity<List<BookView>>> page = () -> booksPage(after, cursor, limit, genreId, authorId,
+                minPrice, maxPrice, inStock, sort);
+        return listCache.write(request, response, page) ? null : page.get();
+    }
+
+    private ResponseEntity<List<BookView>> booksPage(Long after, String cursor, Integer limit, Long genreId,
+                                                     Long authorId, Double minPrice, Double maxPrice, Boolean inStock,
+                                                     String sort) {
+        int pageSize = KeysetPage.limit(limit);
+        boolean filtered = genreId != null || authorId != null || minPrice != null || maxPrice != null
+                || Boolean.TRUE.equals(inStock);
+        if (!filtered && sort == null) {
+            List<BookView> books = bookRepository.findViewsAfter(KeysetPage.after(after, cursor), Limit.of(pageSize + 1));
+            return KeysetPage.of(books, pageSize, BookView::getId);
+        }
+        BookSort order;
+        Specification<Book> position = null;
+        try {
+            order = BookSort.parse(sort);
+            if (cursor != null) {
+                position = order.after(KeysetPage.decodePayload(cursor));
+            } else if (after != null) {
+                if (order.getField() != BookSort.Field.ID) {
+                    throw new IllegalArgumentException("after only applies to sort=id");
+                }
+                position = order.after("id:" + after);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Specification<Book> spec = BookSpecifications.filter(genreId, authorId, minPrice, maxPrice, inStock).and(position);
+        List<BookView> books = bookRepository.findViews(spec, order, Limit.of(pageSize + 1));
+        return KeysetPage.ofCursors(books, pageSize, order::cursorOf);
+    }
+
+    /**
+     * The same page, filters and paging headers as {@link #getAllBooks}, for clients that ask for
+     * CBOR, with authors and genres normalized out of the books. Not cached.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<CompactBookPage> getAllBooksCompact(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestParam(required = false) Long genreId,
+                                                              @RequestParam(required = false) Long authorId,
+                                                              @RequestParam(required = false) Double minPrice,
+                                                              @RequestParam(required = false) Double maxPrice,
+                                                              @RequestParam(required = false) Boolean inStock,
+                                                              @RequestParam(required = false) String sort) {
+        ResponseEntity<List<BookView>> page = booksPage(after, cursor, limit, genreId, authorId, minPrice, maxPrice,
+                inStock, sort);
+        return ResponseEntity.status(page.getStatusCode()).headers(page.getHeaders())
+                .body(CompactBookPage.of(page.getBody()));
     }
 
+    @GetMapping("/search")
+    public List<BookView> searchBooks(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        List<Long> ids = bookSearchIndex.search(q, Math.min(limit, BookSearchIndex.MAX_RESULTS));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookView> views = bookRepository.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookView::getId, Function.identity()));
+        return ids.stream().map(views::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Streams the catalog for up to {@code books.export.timeout} rather than the shorter
+     * {@code spring.mvc.async.request-timeout} of other asynchronous requests.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(HttpServletRequest request) {
+        StreamingResponseBody body = withTimeout(request, exportTimeout, bookExportService::export);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Book count, stock and stock value of the whole catalog and of each genre, from running
+     * totals rather than a scan of the table.
+     */
+    @GetMapping("/stats")
+    public CatalogSummary getCatalogStats() {
+        return catalogStats.summary();
+    }
+
+    /**
+     * Concurrent requests for the same book share one load and one JSON encoding.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
-        Book book = bookRepository.findById(id).orElse(null);
+    public ResponseEntity<SharedJson<BookView>> getBookById(@PathVariable Long id) {
+        Supplier<SharedJson<BookView>> load = () -> bookRepository.findViewById(id).map(SharedJson::new).orElse(null);
+        SharedJson<BookView> book = coalesceReads ? bookReads.load(id, load) : load.get();
         if (book != null) {
-            return ResponseEntity.ok(book);
+            // With an ETag set, If-None-Match matches are answered with 304 before serialization.
+            return etagEnabled ? ResponseEntity.ok().eTag(etagOf(book.getValue())).body(book) : ResponseEntity.ok(book);
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -32,33 +230,299 @@ public class BookController {
 
     @PostMapping
     public Book createBook(@RequestBody Book book) {
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        listCache.catalogChanged();
+        return saved;
     }
 
     @PutMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book updatedBook) {
+        // Pending write-behind deltas land before the new quantity overwrites them.
+        inventoryService.invalidate(id);
         Book book = bookRepository.findById(id).orElse(null);
         if (book != null) {
-            book.setTitle(updatedBook.getTitle());
-            book.setAuthor(updatedBook.getAuthor());
-            book.setGenre(updatedBook.getGenre());
-            book.setPrice(updatedBook.getPrice());
-            book.setQuantityAvailable(updatedBook.getQuantityAvailable());
+            if (updatedBook.getVersion() != null && !updatedBook.getVersion().equals(book.getVersion())) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            copyFields(book, updatedBook);
             bookRepository.save(book);
+            inventoryService.invalidate(id);
+            bookReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.ok(book);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Sets only the fields present in the body with one update statement, without loading the
+     * book. With {@code If-Match}, the update only applies if the book is still at that version.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MergePatch.MEDIA_TYPE})
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+    public ResponseEntity<BookView> patchBook(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody Map<String, Object> patch) {
+        Long expectedVersion = IfMatch.expectedVersion(ifMatch);
+        Map<String, Object> changes = bookChanges(patch);
+        boolean stock = changes.containsKey("quantityAvailable");
+        if (stock) {
+            inventoryService.invalidate(id);
+        }
+        // The stats move the book out of its old groups, so find them before the update.
+        BookView before = changes.keySet().stream().anyMatch(STATS_FIELDS::contains)
+                ? viewBefore(id, expectedVersion)
+                : null;
+        int updated;
+        try {
+            updated = changeLog.recordUpdate(CatalogChange.Type.BOOK, id,
+                    () -> bookRepository.patch(id, expectedVersion, changes));
+        } catch (InvalidDataAccessApiUsageException e) {
+            // A referenced author or genre that does not exist.
+            throw MergePatch.invalid(e.getMostSpecificCause().getMessage());
+        }
+        if (updated == 0) {
+            return ResponseEntity.status(bookRepository.existsById(id) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND)
+                    .build();
+        }
+        bookReads.forget(id);
+        listCache.catalogChanged();
+        if (stock) {
+            inventoryService.invalidate(id);
+        }
+        // Not findViewById: the books cache still holds the old view until this method returns.
+        BookView book = bookRepository.findViewsByIdIn(List.of(id)).stream().findFirst().orElse(null);
+        if (book == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // The update statement bypasses the entity listeners that maintain the search index and the stats.
+        if (changes.containsKey("title") || changes.containsKey("author")) {
+            bookSearchIndex.putBook(id, book.getTitle(), book.getAuthor() != null ? book.getAuthor().getId() : null);
+        }
+        if (before != null) {
+            catalogStats.updateBook(before, book);
+        }
+        return etagEnabled ? ResponseEntity.ok().eTag(etagOf(book)).body(book) : ResponseEntity.ok(book);
+    }
+
+    /**
+     * The book as it is before a patch. Every write bumps the version, so when the patch is
+     * conditional on the version of the cached view, that view is the state it replaces.
+     */
+    private BookView viewBefore(Long id, Long expectedVersion) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS);
+        BookView cached = cache != null ? cache.get(id, BookView.class) : null;
+        if (cached != null && expectedVersion != null && expectedVersion.equals(cached.getVersion())) {
+            return cached;
+        }
+        return bookRepository.findViewsByIdIn(List.of(id)).stream().findFirst().orElse(null);
+    }
+
+    @PostMapping("/{id}/reserve")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+    public ResponseEntity<Void> reserveBook(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        requirePositive(quantity);
+        InventoryService.Result result = inventoryService.reserve(id, quantity);
+        bookReads.forget(id);
+        listCache.catalogChanged();
+        return toResponse(result);
+    }
+
+    @PostMapping("/{id}/release")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+    public ResponseEntity<Void> releaseBook(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        requirePositive(quantity);
+        InventoryService.Result result = inventoryService.release(id, quantity);
+        bookReads.forget(id);
+        listCache.catalogChanged();
+        return toResponse(result);
+    }
+
+    @PostMapping("/batch")
+    public List<BatchItemResult> createBooks(@RequestBody List<Book> books) {
+        List<BatchItemResult> results = batchService.create(books, bookRepository, Book::getId, Book::setId);
+        listCache.catalogChanged();
+        return results;
+    }
+
+    /**
+     * Imports a catalog CSV streamed in the request body. Progress is streamed back as
+     * newline-delimited JSON, one {@link ImportProgress} per committed chunk and a final one with
+     * {@code done} set. The import may run for up to {@code books.import.timeout}.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importBooks(InputStream csv, HttpServletRequest request)
+            throws IOException {
+        CatalogImportService.CatalogImport catalogImport;
+        try {
+            catalogImport = catalogImportService.open(csv);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ObjectWriter writer = objectMapper.writerFor(ImportProgress.class);
+        StreamingResponseBody body = out -> {
+            ImportProgress done;
+            try {
+                done = catalogImport.run(progress -> {
+                    // A client that stopped reading ends the import.
+                    try {
+                        writeLine(out, writer, progress);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                listCache.catalogChanged();
+            }
+            writeLine(out, writer, done);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(withTimeout(request, importTimeout, body));
+    }
+
+    @PutMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> updateBooks(@RequestBody List<Book> books) {
+        inventoryService.invalidateAll();
+        List<BatchItemResult> results = batchService.update(books, bookRepository, Book::getId, Book::getVersion,
+                BookController::copyFields);
+        inventoryService.invalidateAll();
+        bookReads.forgetAll();
+        listCache.catalogChanged();
+        return results;
+    }
+
+    @DeleteMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> deleteBooks(@RequestBody List<Long> ids) {
+        // deleteAllByIdInBatch bypasses the entity listeners that maintain the search index and the stats.
+        List<BatchItemResult> results = batchService.delete(ids, bookRepository, Book::getId, catalogStats::removeBook);
+        ids.forEach(inventoryService::invalidate);
+        bookReads.forgetAll();
+        listCache.catalogChanged();
+        results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.DELETED)
+                .forEach(result -> bookSearchIndex.removeBook(result.getId()));
+        return results;
+    }
+
     @DeleteMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
+        inventoryService.invalidate(id);
         Book book = bookRepository.findById(id).orElse(null);
         if (book != null) {
             bookRepository.delete(book);
+            inventoryService.invalidate(id);
+            bookReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleConcurrentUpdate() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    private static ResponseEntity<Void> toResponse(InventoryService.Result result) {
+        return switch (result) {
+            case OK -> ResponseEntity.noContent().build();
+            case INSUFFICIENT_STOCK -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+        };
+    }
+
+    private static void writeLine(OutputStream out, ObjectWriter writer, ImportProgress progress)
+            throws IOException {
+        out.write(writer.writeValueAsBytes(progress));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Spring starts the asynchronous request with {@code spring.mvc.async.request-timeout} before
+     * the body runs; the body then extends it to {@code timeout} for this request alone.
+     */
+    private static StreamingResponseBody withTimeout(HttpServletRequest request, Duration timeout,
+                                                     StreamingResponseBody body) {
+        return out -> {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().setTimeout(timeout.toMillis());
+            }
+            body.writeTo(out);
+        };
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be positive");
+        }
+    }
+
+    /**
+     * Checks a book patch and converts it to the attribute values {@link BookRepository#patch}
+     * takes; author and genre are given as {@code {"id": ...}} like in the full representation.
+     */
+    private static Map<String, Object> bookChanges(Map<String, Object> patch) {
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "title" -> {
+                    if (value != null && !(value instanceof String)) {
+                        throw MergePatch.invalid("title must be a string");
+                    }
+                    changes.put("title", value);
+                }
+                case "price" -> {
+                    if (!(value instanceof Number price)) {
+                        throw MergePatch.invalid("price must be a number");
+                    }
+                    changes.put("price", price.doubleValue());
+                }
+                case "quantityAvailable" -> {
+                    if (!(value instanceof Integer quantity)) {
+                        throw MergePatch.invalid("quantityAvailable must be a whole number");
+                    }
+                    changes.put("quantityAvailable", quantity);
+                }
+                case "author", "genre" -> changes.put(field.getKey(), referencedId(field.getKey(), value));
+                default -> throw MergePatch.unknownField(field.getKey());
+            }
+        }
+        if (changes.isEmpty()) {
+            throw MergePatch.invalid("nothing to update");
+        }
+        return changes;
+    }
+
+    private static Long referencedId(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Map<?, ?> reference && reference.get("id") instanceof Number id
+                && (id instanceof Integer || id instanceof Long)) {
+            return id.longValue();
+        }
+        throw MergePatch.invalid(field + " must be null or an object with a numeric id");
+    }
+
+    private static void copyFields(Book book, Book updatedBook) {
+        book.setTitle(updatedBook.getTitle());
+        book.setAuthor(updatedBook.getAuthor());
+        book.setGenre(updatedBook.getGenre());
+        book.setPrice(updatedBook.getPrice());
+        book.setQuantityAvailable(updatedBook.getQuantityAvailable());
+    }
+
+    private static String etagOf(BookView book) {
+        // The version covers the book row; author and genre names are embedded in the view too.
+        int names = Objects.hash(book.getAuthor() != null ? book.getAuthor().getName() : null,
+                book.getGenre() != null ? book.getGenre().getName() : null);
+        return "\"" + book.getVersion() + "-" + Integer.toHexString(names) + "\"";
+    }
 }
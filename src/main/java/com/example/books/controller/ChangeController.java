@@ -0,0 +1,78 @@
+package com.example.books.controller;
+
+import com.example.books.dto.ChangeBatch;
+import com.example.books.service.CatalogChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered feed of catalog changes for consumers that keep a copy of the catalog in sync.
+ * <p>
+ * A consumer starts from {@code since=0}, or from {@code /changes/head} read before a full reload,
+ * applies each batch and asks again with its {@code next}. When nothing newer is published yet the request is held
+ * for up to {@code wait} seconds without tying up a servlet thread, and answered as soon as a
+ * change comes in. Each change names the entity and whether it was upserted or deleted; consumers
+ * fetch the current state themselves. {@code 410 Gone} means changes after {@code since} have
+ * already been pruned and the consumer has to reload.
+ */
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    static final int MAX_WAIT_SECONDS = 60;
+
+    @Autowired
+    private CatalogChangeFeed changeFeed;
+
+    @GetMapping
+    public DeferredResult<ResponseEntity<ChangeBatch>> getChanges(@RequestParam long since,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(defaultValue = "30") int wait) {
+        if (since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must not be negative");
+        }
+        if (wait < 0 || wait > MAX_WAIT_SECONDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "wait must be between 0 and " + MAX_WAIT_SECONDS);
+        }
+        int pageSize = KeysetPage.limit(limit);
+        ChangeBatch batch = changeFeed.read(since, pageSize);
+        if (!batch.getChanges().isEmpty() || wait == 0) {
+            DeferredResult<ResponseEntity<ChangeBatch>> result = new DeferredResult<>();
+            result.setResult(respond(since, batch));
+            return result;
+        }
+        DeferredResult<ResponseEntity<ChangeBatch>> result =
+                new DeferredResult<>(TimeUnit.SECONDS.toMillis(wait), ResponseEntity.ok(batch));
+        result.onCompletion(changeFeed.await(since, pageSize, changes -> result.setResult(respond(since, changes))));
+        return result;
+    }
+
+    /**
+     * The newest published {@code seq}. Consumers read it before a full reload and continue from
+     * it afterwards.
+     */
+    @GetMapping("/head")
+    public long getHead() {
+        return changeFeed.head();
+    }
+
+    /**
+     * Published {@code seq}s have no gaps, so a batch that does not start right after
+     * {@code since} means the changes in between were pruned.
+     */
+    private static ResponseEntity<ChangeBatch> respond(long since, ChangeBatch batch) {
+        if (!batch.getChanges().isEmpty() && batch.getChanges().get(0).getSeq() > since + 1) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok(batch);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.books.controller;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells which constraint a failed write violated. Drivers name it in the message, and Hibernate
+ * keeps the message of the driver's exception, so the cause chain is searched for the name.
+ */
+final class Constraints {
+
+    private Constraints() {
+    }
+
+    static boolean violated(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -1,12 +1,33 @@
 package com.example.books.controller;
 
+import com.example.books.config.CacheConfig;
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.CatalogStats;
+import com.example.books.dto.SharedJson;
+import com.example.books.model.CatalogChange;
 import com.example.books.model.Genre;
 import com.example.books.repository.GenreRepository;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.CatalogStatsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/genres")
@@ -15,46 +36,191 @@ public class GenreController {
     @Autowired
     private GenreRepository genreRepository;
 
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Autowired
+    private ListResponseCache listCache;
+
+    @Value("${books.http.coalesce-reads:true}")
+    private boolean coalesceReads;
+
+    private final SingleFlight<Long, SharedJson<Genre>> genreReads = new SingleFlight<>();
+
+    /**
+     * Pages are answered from {@link ListResponseCache} until the catalog changes. The cache writes
+     * the response itself, and the method then returns {@code null}, which Spring MVC takes for a
+     * request that has been handled; otherwise the page is returned as usual.
+     */
     @GetMapping
-    public List<Genre> getAllGenres() {
-        return genreRepository.findAll();
+    public ResponseEntity<List<Genre>> getAllGenres(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    HttpServletRequest request,
+                                                    HttpServletResponse response) throws IOException {
+        int pageSize = KeysetPage.limit(limit);
+        long position = KeysetPage.after(after, cursor);
+        Supplier<ResponseEntity<List<Genre>>> page = () -> KeysetPage.of(
+                genreRepository.findByIdGreaterThanOrderByIdAsc(position, Limit.of(pageSize + 1)), pageSize, Genre::getId);
+        return listCache.write(request, response, page) ? null : page.get();
     }
 
+    /**
+     * Concurrent requests for the same genre share one load and one JSON encoding.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Genre> getGenreById(@PathVariable Long id) {
-        Genre genre = genreRepository.findById(id).orElse(null);
+    public ResponseEntity<SharedJson<Genre>> getGenreById(@PathVariable Long id) {
+        Supplier<SharedJson<Genre>> load = () -> genreRepository.findById(id).map(SharedJson::new).orElse(null);
+        SharedJson<Genre> genre = coalesceReads ? genreReads.load(id, load) : load.get();
         if (genre != null) {
-            return ResponseEntity.ok(genre);
+            return IfMatch.ok(genre, genre.getValue().getVersion());
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Book count, stock and stock value of the genre's books, from running totals.
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CatalogStats> getGenreStats(@PathVariable Long id) {
+        if (genreRepository.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(catalogStats.genre(id));
+    }
+
     @PostMapping
     public Genre createGenre(@RequestBody Genre genre) {
-        return genreRepository.save(genre);
+        Genre saved = genreRepository.save(genre);
+        listCache.catalogChanged();
+        return saved;
+    }
+
+    /**
+     * Returns the genre with this name in any case, creating it when there is none: {@code 201}
+     * if it was created, {@code 200} if it already existed. An id is only drawn when the name is
+     * not found, and the insert is then a single insert-if-absent statement on the unique name
+     * index, so concurrent calls with one name create one genre.
+     */
+    @PutMapping("/by-name/{name}")
+    public ResponseEntity<Genre> upsertGenreByName(@PathVariable String name) {
+        if (name.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long existingId = genreRepository.findIdByName(name);
+        Genre existing = existingId != null ? genreRepository.findById(existingId).orElse(null) : null;
+        if (existing != null) {
+            return IfMatch.ok(existing, existing.getVersion());
+        }
+        long id = genreRepository.nextId();
+        boolean created = changeLog.recordUpdate(CatalogChange.Type.GENRE, id,
+                () -> genreRepository.insertIfAbsent(id, name) == id ? 1 : 0) > 0;
+        Genre genre = genreRepository.findByName(name).orElse(null);
+        if (genre == null) {
+            // deleted in between
+            return ResponseEntity.notFound().build();
+        }
+        if (!created) {
+            return IfMatch.ok(genre, genre.getVersion());
+        }
+        listCache.catalogChanged();
+        return IfMatch.created(URI.create("/genres/" + id), genre, genre.getVersion());
     }
 
     @PutMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
     public ResponseEntity<Genre> updateGenre(@PathVariable Long id, @RequestBody Genre updatedGenre) {
         Genre genre = genreRepository.findById(id).orElse(null);
         if (genre != null) {
-            genre.setName(updatedGenre.getName());
+            copyFields(genre, updatedGenre);
             genreRepository.save(genre);
+            genreReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.ok(genre);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MergePatch.MEDIA_TYPE})
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public ResponseEntity<Genre> patchGenre(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            @RequestBody Map<String, Object> patch) {
+        Long expectedVersion = IfMatch.expectedVersion(ifMatch);
+        if (changeLog.recordUpdate(CatalogChange.Type.GENRE, id,
+                () -> genreRepository.rename(id, MergePatch.name(patch), expectedVersion)) == 0) {
+            return ResponseEntity.status(genreRepository.existsById(id) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND)
+                    .build();
+        }
+        genreReads.forget(id);
+        listCache.catalogChanged();
+        Genre genre = genreRepository.findById(id).orElse(null);
+        if (genre == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return IfMatch.ok(genre, genre.getVersion());
+    }
+
+    @PostMapping("/batch")
+    public List<BatchItemResult> createGenres(@RequestBody List<Genre> genres) {
+        List<BatchItemResult> results = batchService.create(genres, genreRepository, Genre::getId, Genre::setId);
+        listCache.catalogChanged();
+        return results;
+    }
+
+    @PutMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> updateGenres(@RequestBody List<Genre> genres) {
+        List<BatchItemResult> results = batchService.update(genres, genreRepository, Genre::getId, GenreController::copyFields);
+        genreReads.forgetAll();
+        listCache.catalogChanged();
+        return results;
+    }
+
+    @DeleteMapping("/batch")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public List<BatchItemResult> deleteGenres(@RequestBody List<Long> ids) {
+        List<BatchItemResult> results = batchService.delete(ids, genreRepository, Genre::getId);
+        genreReads.forgetAll();
+        listCache.catalogChanged();
+        return results;
+    }
+
     @DeleteMapping("/{id}")
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
     public ResponseEntity<Void> deleteGenre(@PathVariable Long id) {
         Genre genre = genreRepository.findById(id).orElse(null);
         if (genre != null) {
             genreRepository.delete(genre);
+            genreReads.forget(id);
+            listCache.catalogChanged();
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Answers {@code 409} when another genre already has the name, in some case. Other integrity
+     * violations are not a taken name and are left to the default handling.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> handleDuplicateName(DataIntegrityViolationException e) {
+        if (!Constraints.violated(e, "uk_genres_name_key")) {
+            throw e;
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    private static void copyFields(Genre genre, Genre updatedGenre) {
+        genre.setName(updatedGenre.getName());
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.books.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+
+/**
+ * {@code If-Match} preconditions for partial updates.
+ * <p>
+ * Entity tags start with the entity's version: {@code "3"} for authors and genres, and
+ * {@code "3-<hash>"} for books, whose tag also covers the embedded author and genre names. Only
+ * the version is compared, so the precondition is checked by the update statement itself. A tag
+ * taken before an author was renamed still matches the book, because the book row did not change.
+ */
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    /**
+     * The version the client expects, or {@code null} when any version will do: no header, or
+     * {@code *}. A weak or unparseable tag can never match, so it fails with 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.indexOf(',') >= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must name a single entity tag");
+        }
+        if (tag.startsWith("W/") || tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        String opaque = tag.substring(1, tag.length() - 1);
+        int dash = opaque.indexOf('-');
+        try {
+            return Long.parseLong(dash >= 0 ? opaque.substring(0, dash) : opaque);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    /**
+     * A 200 response tagged with {@code version}, so the client can send it back in
+     * {@code If-Match}; matching {@code If-None-Match} requests get a 304.
+     */
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        return version != null ? ResponseEntity.ok().eTag("\"" + version + "\"").body(body) : ResponseEntity.ok(body);
+    }
+
+    /**
+     * A 201 response for an entity created at {@code location}, tagged like {@link #ok}.
+     */
+    static <T> ResponseEntity<T> created(URI location, T body, Long version) {
+        ResponseEntity.BodyBuilder created = ResponseEntity.created(location);
+        return version != null ? created.eTag("\"" + version + "\"").body(body) : created.body(body);
+    }
+}
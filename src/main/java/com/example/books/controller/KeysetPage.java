@@ -0,0 +1,102 @@
+package com.example.books.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over ascending ids shared by the list endpoints.
+ * <p>
+ * Clients pass either a raw {@code after} id or the opaque {@code cursor} returned in the
+ * {@value #NEXT_CURSOR_HEADER} header of the previous page. Repositories fetch one row more
+ * than the page size so the presence of a next page is known without a count query. The
+ * reactive stack reuses the same parameters and cursor format.
+ */
+public final class KeysetPage {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private KeysetPage() {
+    }
+
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    public static long after(Long after, String cursor) {
+        if (cursor != null) {
+            return decode(cursor);
+        }
+        return after != null ? after : 0L;
+    }
+
+    static <T> ResponseEntity<List<T>> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        return ofCursors(rows, limit, row -> CURSOR_PREFIX + idOf.apply(row));
+    }
+
+    /**
+     * Like {@link #of}, for orderings whose position is more than an id; {@code payloadOf} gives
+     * the raw cursor text for a row, which is then encoded the same way as an id cursor.
+     */
+    static <T> ResponseEntity<List<T>> ofCursors(List<T> rows, int limit, Function<T, String> payloadOf) {
+        if (rows.size() <= limit) {
+            return ResponseEntity.ok(rows);
+        }
+        List<T> page = rows.subList(0, limit);
+        String next = encodePayload(payloadOf.apply(page.get(limit - 1)));
+        String link = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after")
+                .replaceQueryParam("cursor", next)
+                .replaceQueryParam("limit", limit)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, next)
+                .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"")
+                .body(page);
+    }
+
+    public static String encode(long id) {
+        return encodePayload(CURSOR_PREFIX + id);
+    }
+
+    static long decode(String cursor) {
+        try {
+            String raw = decodePayload(cursor);
+            if (!raw.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            return Long.parseLong(raw.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static String encodePayload(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodePayload(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
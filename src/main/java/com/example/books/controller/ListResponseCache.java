@@ -0,0 +1,216 @@
+package com.example.books.controller;
+
+import com.example.books.config.ReplicaRoutingDataSource;
+import com.example.books.service.CatalogChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded JSON of list pages (genres, authors, and filtered or paged books), keyed by the request.
+ * <p>
+ * Entries are tagged with the catalog generation they were read in and only served while it is
+ * current. The generation moves when a controller write method calls {@link #catalogChanged()}, and
+ * with {@link CatalogChangeFeed#generation()}, which covers catalog changes committed anywhere else
+ * on this instance (write-behind flushes, imports, services) and, once published, on other
+ * instances. A page read just before a write on another instance can therefore be served until
+ * that write is published, at most {@code books.changes.poll-interval-ms} later.
+ * <p>
+ * A hit sets a few headers and writes the stored bytes, gzipped ahead of time when the page is
+ * large enough and the client accepts it; nothing is queried, encoded or compressed. Requests
+ * that may be answered with CBOR are left to the message converters.
+ * <p>
+ * The cache holds at most {@code books.http.list-cache.max-entries} pages and
+ * {@code books.http.list-cache.max-size} of encoded bytes. Pages from older generations go first,
+ * then arbitrary ones; a single page over a sixteenth of the size limit is not stored at all.
+ */
+@Component
+public class ListResponseCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong writes = new AtomicLong();
+
+    /** Encoded bytes held by {@link #entries}. */
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final ObjectMapper objectMapper;
+
+    private final CatalogChangeFeed changeFeed;
+
+    @Value("${books.http.list-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${books.http.list-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${books.http.list-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${books.http.list-cache.gzip:true}")
+    private boolean gzip;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize gzipMinSize;
+
+    @Autowired
+    public ListResponseCache(ObjectMapper objectMapper, CatalogChangeFeed changeFeed, MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.changeFeed = changeFeed;
+        FunctionCounter.builder("books.http.list_cache", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("books.http.list_cache", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        Gauge.builder("books.http.list_cache.size", bytes, AtomicLong::get).baseUnit("bytes").register(registry);
+    }
+
+    public long generation() {
+        return writes.get() + changeFeed.generation();
+    }
+
+    /**
+     * Retires every stored page. Called after a write has committed, so a page read after this
+     * call can no longer be one from before the write.
+     */
+    public void catalogChanged() {
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Answers the request from the cache, or from {@code page} and then stores the result.
+     *
+     * @return {@code false} when the request is not cacheable and has not been answered; the
+     * caller returns {@code page} as usual
+     */
+    public boolean write(HttpServletRequest request, HttpServletResponse response,
+                         Supplier<? extends ResponseEntity<?>> page) throws IOException {
+        String query = request.getQueryString();
+        if (!enabled || !acceptsJson(request.getHeader(HttpHeaders.ACCEPT))
+                || query == null && !request.getParameterMap().isEmpty()) {
+            // parameters from anywhere but the query string are not part of the key
+            return false;
+        }
+        Key key = new Key(request.getRequestURI(), query, request.getScheme(),
+                request.getHeader(HttpHeaders.HOST), ReplicaRoutingDataSource.routesReadsToReplica());
+        long generation = generation();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation == generation) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // read the generation before the page, so a write during the read retires the entry
+            entry = encode(generation, page.get());
+            if (entry.status == HttpStatus.OK.value()) {
+                store(key, entry);
+            }
+        }
+        entry.writeTo(response, acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+        return true;
+    }
+
+    private Entry encode(long generation, ResponseEntity<?> page) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(page.getBody());
+        byte[] gzipped = null;
+        if (gzip && json.length >= gzipMinSize.toBytes()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(json);
+            }
+            gzipped = buffer.toByteArray();
+        }
+        String[] headers = page.getHeaders().entrySet().stream()
+                .flatMap(header -> header.getValue().stream().flatMap(value -> List.of(header.getKey(), value).stream()))
+                .toArray(String[]::new);
+        return new Entry(generation, page.getStatusCode().value(), headers, json, gzipped);
+    }
+
+    private void store(Key key, Entry entry) {
+        long maxBytes = maxSize.toBytes();
+        if (entry.size() > maxBytes / 16) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        bytes.addAndGet(entry.size() - (previous != null ? previous.size() : 0));
+        if (entries.size() > maxEntries || bytes.get() > maxBytes) {
+            entries.forEach((stale, value) -> {
+                if (value.generation != entry.generation) {
+                    remove(stale, value);
+                }
+            });
+            Iterator<Map.Entry<Key, Entry>> others = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes.get() > maxBytes) && others.hasNext()) {
+                Map.Entry<Key, Entry> other = others.next();
+                if (!other.getKey().equals(key)) {
+                    remove(other.getKey(), other.getValue());
+                }
+            }
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            bytes.addAndGet(-entry.size());
+        }
+    }
+
+    static boolean acceptsJson(String accept) {
+        return accept == null || !accept.contains("cbor")
+                && (accept.contains("json") || accept.contains("*/*") || accept.contains("application/*"));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private record Key(String path, String query, String scheme, String host, boolean replica) {
+    }
+
+    private record Entry(long generation, int status, String[] headers, byte[] json, byte[] gzipped) {
+
+        long size() {
+            return json.length + (gzipped != null ? gzipped.length : 0);
+        }
+
+        void writeTo(HttpServletResponse response, boolean gzip) throws IOException {
+            response.setStatus(status);
+            for (int i = 0; i < headers.length; i += 2) {
+                response.addHeader(headers[i], headers[i + 1]);
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            byte[] body = json;
+            if (gzipped != null) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (gzip) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    body = gzipped;
+                }
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
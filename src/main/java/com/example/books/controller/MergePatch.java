@@ -0,0 +1,45 @@
+package com.example.books.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * Request bodies of the PATCH endpoints, read as JSON merge patches (RFC 7396): a member that is
+ * present replaces the stored value, {@code null} clears it, and absent members are left alone.
+ */
+final class MergePatch {
+
+    static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    static ResponseStatusException invalid(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    static ResponseStatusException unknownField(String field) {
+        return invalid("unknown or read-only field: " + field);
+    }
+
+    /**
+     * The new name from an author or genre patch, whose only patchable field is {@code name}.
+     */
+    static String name(Map<String, Object> patch) {
+        for (String field : patch.keySet()) {
+            if (!field.equals("name")) {
+                throw unknownField(field);
+            }
+        }
+        if (!patch.containsKey("name")) {
+            throw invalid("nothing to update");
+        }
+        Object name = patch.get("name");
+        if (name != null && !(name instanceof String)) {
+            throw invalid("name must be a string");
+        }
+        return (String) name;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.books.controller;
+
+import com.example.books.config.ReplicaRoutingDataSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent loads of the same key share one call to the loader. The first caller runs it on
+ * its own thread; callers arriving while it runs wait for the same result, or exception. Nothing
+ * is kept once the load returns, so only work that is already in flight is shared and caching
+ * stays with the repositories.
+ * <p>
+ * Requests pinned to the primary after a write never join a load that reads from a replica, and
+ * writers call {@link #forget} so that later reads do not join a load that started before them.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<Key<K>, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public V load(K id, Supplier<V> loader) {
+        Key<K> key = new Key<>(id, ReplicaRoutingDataSource.routesReadsToReplica());
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    public void forget(K id) {
+        flights.remove(new Key<>(id, false));
+        flights.remove(new Key<>(id, true));
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Key<K>(K id, boolean replica) {
+    }
+}
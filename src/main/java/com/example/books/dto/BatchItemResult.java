@@ -0,0 +1,48 @@
+package com.example.books.dto;
+
+/**
+ * Outcome of a single element of a bulk request, reported at the element's position in the
+ * request array.
+ */
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, FAILED
+    }
+
+    private final int index;
+    private final Long id;
+    private final Status status;
+    private final String error;
+
+    public BatchItemResult(int index, Long id, Status status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchItemResult of(int index, Long id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failed(int index, Long id, String error) {
+        return new BatchItemResult(index, id, Status.FAILED, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.books.dto;
+
+import java.io.Serializable;
+
+/**
+ * Read-only projection of a {@link com.example.books.model.Book} with its author and genre,
+ * built directly from a single joined query. Serializes to the same JSON shape as the entity.
+ */
+public class BookView implements Serializable {
+
+    private final Long id;
+    private final String title;
+    private final Reference author;
+    private final Reference genre;
+    private final double price;
+    private final int quantityAvailable;
+    private final Long version;
+
+    public BookView(Long id, String title, Long authorId, String authorName, Long genreId, String genreName,
+                    double price, int quantityAvailable, Long version) {
+        this.id = id;
+        this.title = title;
+        this.author = authorId != null ? new Reference(authorId, authorName) : null;
+        this.genre = genreId != null ? new Reference(genreId, genreName) : null;
+        this.price = price;
+        this.quantityAvailable = quantityAvailable;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Reference getAuthor() {
+        return author;
+    }
+
+    public Reference getGenre() {
+        return genre;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getQuantityAvailable() {
+        return quantityAvailable;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public static class Reference implements Serializable {
+
+        private final Long id;
+        private final String name;
+
+        public Reference(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.books.dto;
+
+/**
+ * Hit, miss and put counters of one second-level cache region since startup.
+ */
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+
+    public CacheRegionStats(String region, long hitCount, long missCount, long putCount) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+}
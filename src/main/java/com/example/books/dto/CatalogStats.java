@@ -0,0 +1,31 @@
+package com.example.books.dto;
+
+/**
+ * Number of titles, units in stock and stock value (price x quantity) of a group of books.
+ */
+public class CatalogStats {
+
+    public static final CatalogStats EMPTY = new CatalogStats(0, 0, 0.0);
+
+    private final long books;
+    private final long stock;
+    private final double inventoryValue;
+
+    public CatalogStats(long books, long stock, double inventoryValue) {
+        this.books = books;
+        this.stock = stock;
+        this.inventoryValue = inventoryValue;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public long getStock() {
+        return stock;
+    }
+
+    public double getInventoryValue() {
+        return inventoryValue;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.books.dto;
+
+import java.util.Map;
+
+/**
+ * Totals over the whole catalog, and per genre id. Books without a genre only count in the total.
+ */
+public class CatalogSummary {
+
+    private final CatalogStats total;
+    private final Map<Long, CatalogStats> genres;
+
+    public CatalogSummary(CatalogStats total, Map<Long, CatalogStats> genres) {
+        this.total = total;
+        this.genres = genres;
+    }
+
+    public CatalogStats getTotal() {
+        return total;
+    }
+
+    public Map<Long, CatalogStats> getGenres() {
+        return genres;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.books.dto;
+
+import com.example.books.model.CatalogChange;
+
+import java.util.List;
+
+/**
+ * Published catalog changes in {@code seq} order, and the {@code seq} to ask for changes after
+ * next. An empty batch keeps {@code next} where the request started.
+ */
+public class ChangeBatch {
+
+    private final List<CatalogChange> changes;
+    private final long next;
+
+    public ChangeBatch(List<CatalogChange> changes, long next) {
+        this.changes = changes;
+        this.next = next;
+    }
+
+    public static ChangeBatch of(long since, List<CatalogChange> changes) {
+        return new ChangeBatch(changes, changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq());
+    }
+
+    public List<CatalogChange> getChanges() {
+        return changes;
+    }
+
+    public long getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of books for binary (CBOR) clients. Each author and genre on the page is listed once
+ * instead of being repeated in every book, and each book is written as an array
+ * {@code [id, title, authorId, genreId, price, quantityAvailable, version]} rather than an object
+ * with named fields.
+ */
+public class CompactBookPage {
+
+    private final List<BookView.Reference> authors;
+    private final List<BookView.Reference> genres;
+    private final List<Row> books;
+
+    public CompactBookPage(List<BookView.Reference> authors, List<BookView.Reference> genres, List<Row> books) {
+        this.authors = authors;
+        this.genres = genres;
+        this.books = books;
+    }
+
+    public static CompactBookPage of(List<BookView> views) {
+        Map<Long, BookView.Reference> authors = new LinkedHashMap<>();
+        Map<Long, BookView.Reference> genres = new LinkedHashMap<>();
+        List<Row> books = new ArrayList<>(views.size());
+        for (BookView view : views) {
+            BookView.Reference author = view.getAuthor();
+            BookView.Reference genre = view.getGenre();
+            if (author != null) {
+                authors.putIfAbsent(author.getId(), author);
+            }
+            if (genre != null) {
+                genres.putIfAbsent(genre.getId(), genre);
+            }
+            books.add(new Row(view.getId(), view.getTitle(), author != null ? author.getId() : null,
+                    genre != null ? genre.getId() : null, view.getPrice(), view.getQuantityAvailable(),
+                    view.getVersion()));
+        }
+        return new CompactBookPage(new ArrayList<>(authors.values()), new ArrayList<>(genres.values()), books);
+    }
+
+    public List<BookView.Reference> getAuthors() {
+        return authors;
+    }
+
+    public List<BookView.Reference> getGenres() {
+        return genres;
+    }
+
+    public List<Row> getBooks() {
+        return books;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"id", "title", "authorId", "genreId", "price", "quantityAvailable", "version"})
+    public static class Row {
+
+        private final Long id;
+        private final String title;
+        private final Long authorId;
+        private final Long genreId;
+        private final double price;
+        private final int quantityAvailable;
+        private final Long version;
+
+        public Row(Long id, String title, Long authorId, Long genreId, double price, int quantityAvailable,
+                   Long version) {
+            this.id = id;
+            this.title = title;
+            this.authorId = authorId;
+            this.genreId = genreId;
+            this.price = price;
+            this.quantityAvailable = quantityAvailable;
+            this.version = version;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Long getAuthorId() {
+            return authorId;
+        }
+
+        public Long getGenreId() {
+            return genreId;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public int getQuantityAvailable() {
+            return quantityAvailable;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+    }
+}
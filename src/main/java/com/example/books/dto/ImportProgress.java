@@ -0,0 +1,74 @@
+package com.example.books.dto;
+
+import java.util.List;
+
+/**
+ * Running totals of a catalog import, sent after every committed chunk and once more at the end
+ * with {@code done} set. {@code rejects} only lists the records rejected since the previous
+ * update, so a client sees each one once.
+ */
+public class ImportProgress {
+
+    private final long records;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedMillis;
+    private final boolean done;
+    private final List<Reject> rejects;
+
+    public ImportProgress(long records, long imported, long rejected, long elapsedMillis, boolean done,
+                          List<Reject> rejects) {
+        this.records = records;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.done = done;
+        this.rejects = rejects;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public List<Reject> getRejects() {
+        return rejects;
+    }
+
+    /**
+     * A record that was not imported; {@code line} is the line of the file it starts on.
+     */
+    public static class Reject {
+
+        private final long line;
+        private final String reason;
+
+        public Reject(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A response body shared by several requests. Its JSON is encoded once, by whichever request
+ * writes it first, and the same bytes are written for the others. Other media types serialize
+ * {@link #getValue()} as usual.
+ */
+public final class SharedJson<T> {
+
+    private final T value;
+    private volatile byte[] json;
+
+    public SharedJson(T value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public T getValue() {
+        return value;
+    }
+
+    public byte[] json(ObjectMapper objectMapper) throws JsonProcessingException {
+        byte[] encoded = json;
+        if (encoded == null) {
+            synchronized (this) {
+                encoded = json;
+                if (encoded == null) {
+                    encoded = objectMapper.writeValueAsBytes(value);
+                    json = encoded;
+                }
+            }
+        }
+        return encoded;
+    }
+}
@@ -1,18 +1,46 @@
 package com.example.books.model;
 
-
+import com.example.books.service.CatalogChangeListener;
+import com.example.books.service.SearchIndexListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "authors")
+@EntityListeners({SearchIndexListener.class, CatalogChangeListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "authors", indexes = {
+        @Index(name = "uk_authors_name_key", columnList = "name_key", unique = true)
+})
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    /**
+     * {@code name} in lower case, computed by the database. Its unique index keeps two authors from
+     * differing only in case and answers {@link com.example.books.repository.AuthorRepository#findByName}.
+     * Only used in queries, so it is neither written nor exposed.
+     */
+    @Column(name = "name_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(name))")
+    private String nameKey;
+
+    /**
+     * Bumped on every change, so {@code If-Match} preconditions can be checked by the update
+     * statement. Not a JPA {@code @Version}: books reference authors and genres by id only, and
+     * those detached references carry no version.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Author() {
     }
 
@@ -40,4 +68,22 @@ public class Author {
     public void setName(String name) {
         this.name = name;
     }
+
+    @PrePersist
+    void initVersion() {
+        version = 0L;
+    }
+
+    @PreUpdate
+    void bumpVersion() {
+        version = version != null ? version + 1 : 1L;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,13 +1,27 @@
 package com.example.books.model;
 
+import com.example.books.service.CatalogChangeListener;
+import com.example.books.service.SearchIndexListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "books")
+@EntityListeners({SearchIndexListener.class, CatalogChangeListener.class})
+// Composites lead with the foreign key, so they also serve plain author_id/genre_id lookups and
+// the FK checks; the trailing sort column lets filtered, sorted pages be read in index order.
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_author_price", columnList = "author_id, price"),
+        @Index(name = "idx_books_author_title", columnList = "author_id, title"),
+        @Index(name = "idx_books_genre_price", columnList = "genre_id, price"),
+        @Index(name = "idx_books_genre_title", columnList = "genre_id, title"),
+        @Index(name = "idx_books_price", columnList = "price"),
+        @Index(name = "idx_books_title", columnList = "title")
+})
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -23,6 +37,11 @@ public class Book {
     private double price;
     private int quantityAvailable;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Book() {
     }
 
@@ -98,4 +117,12 @@ public class Book {
     public void setQuantityAvailable(int quantityAvailable) {
         this.quantityAvailable = quantityAvailable;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.books.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One row of the catalog change outbox. Rows are inserted in the transaction that made the change
+ * and carry no {@code seq} until {@link com.example.books.service.CatalogChangeFeed} publishes them
+ * after commit; {@code id} only reflects insertion order, which is not commit order.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = {
+        @Index(name = "idx_catalog_changes_seq", columnList = "seq", unique = true),
+        @Index(name = "idx_catalog_changes_changed_at", columnList = "changed_at")
+})
+public class CatalogChange {
+
+    public enum Type { BOOK, AUTHOR, GENRE }
+
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public CatalogChange() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -1,17 +1,45 @@
 package com.example.books.model;
 
+import com.example.books.service.CatalogChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "genres")
+@EntityListeners(CatalogChangeListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "genres", indexes = {
+        @Index(name = "uk_genres_name_key", columnList = "name_key", unique = true)
+})
 public class Genre {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "genres_seq")
+    @SequenceGenerator(name = "genres_seq", sequenceName = "genres_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    /**
+     * {@code name} in lower case, computed by the database. Its unique index keeps two genres from
+     * differing only in case and answers {@link com.example.books.repository.GenreRepository#findByName}.
+     * Only used in queries, so it is neither written nor exposed.
+     */
+    @Column(name = "name_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(name))")
+    private String nameKey;
+
+    /**
+     * Bumped on every change, so {@code If-Match} preconditions can be checked by the update
+     * statement. Not a JPA {@code @Version}: books reference authors and genres by id only, and
+     * those detached references carry no version.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Constructors, getters, and setters
     public Genre() {
     }
@@ -40,4 +68,22 @@ public class Genre {
     public void setName(String name) {
         this.name = name;
     }
+
+    @PrePersist
+    void initVersion() {
+        version = 0L;
+    }
+
+    @PreUpdate
+    void bumpVersion() {
+        version = version != null ? version + 1 : 1L;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
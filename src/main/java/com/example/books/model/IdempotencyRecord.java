@@ -0,0 +1,70 @@
+package com.example.books.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A persisted {@code Idempotency-Key}, used when {@code books.idempotency.persist} is on. The row
+ * is inserted when a request with the key starts, without a status, and completed with the
+ * response once it succeeds; {@link com.example.books.service.IdempotencyStore} reads and writes
+ * it with plain JDBC, this mapping only declares the table.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    @Column(nullable = false, length = 32)
+    private byte[] fingerprint;
+
+    private Integer status;
+
+    private String contentType;
+
+    @Column(length = 4000)
+    private String headers;
+
+    @Lob
+    @Column(length = 16_777_215)
+    private byte[] body;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public byte[] getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
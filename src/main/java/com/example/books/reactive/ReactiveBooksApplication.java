@@ -0,0 +1,90 @@
+package com.example.books.reactive;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Entry point of the reactive variant of the catalog API: WebFlux on Netty over R2DBC, serving
+ * the {@code /books}, {@code /authors} and {@code /genres} endpoints of the servlet application
+ * against the same schema. Connection settings come from {@code spring.r2dbc.*}.
+ * <p>
+ * Only the CRUD and list endpoints are mirrored; batch, search, filtering, reservations and the
+ * caches stay with the servlet application. The JDBC/JPA auto-configuration is left out, so
+ * nothing here blocks an event-loop thread.
+ * <p>
+ * This class sits below {@code BooksApplication}'s component scan; the web application type
+ * condition keeps the servlet application from picking it up as one of its configurations.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = DataSourceAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBooksApplication {
+
+    public static void main(String[] args) {
+        start(args);
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(ReactiveBooksApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+
+    /**
+     * Tomcat is on the classpath for the servlet application and would otherwise be preferred.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactiveCatalogRepository reactiveCatalogRepository(DatabaseClient databaseClient,
+                                                               TransactionalOperator transactionalOperator,
+                                                               ConnectionFactory connectionFactory) {
+        return new ReactiveCatalogRepository(databaseClient, transactionalOperator, connectionFactory);
+    }
+
+    @Bean
+    public ReactiveCatalogHandler reactiveCatalogHandler(ReactiveCatalogRepository repository) {
+        return new ReactiveCatalogHandler(repository);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> catalogRoutes(ReactiveCatalogHandler handler) {
+        return RouterFunctions.route()
+                .path("/books", books -> books
+                        .GET("/export", handler::exportBooks)
+                        .GET("/{id}", handler::getBookById)
+                        .GET("", handler::getAllBooks)
+                        .POST("", handler::createBook)
+                        .PUT("/{id}", handler::updateBook)
+                        .DELETE("/{id}", handler::deleteBook))
+                .path("/authors", authors -> authors
+                        .GET("/{id}", handler::getAuthorById)
+                        .GET("", handler::getAllAuthors)
+                        .POST("", handler::createAuthor)
+                        .PUT("/{id}", handler::updateAuthor)
+                        .DELETE("/{id}", handler::deleteAuthor))
+                .path("/genres", genres -> genres
+                        .GET("/{id}", handler::getGenreById)
+                        .GET("", handler::getAllGenres)
+                        .POST("", handler::createGenre)
+                        .PUT("/{id}", handler::updateGenre)
+                        .DELETE("/{id}", handler::deleteGenre))
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.books.reactive;
+
+import com.example.books.controller.KeysetPage;
+import com.example.books.dto.BookView;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Functional handlers mirroring {@code BookController}, {@code AuthorController} and
+ * {@code GenreController}: same paths, parameters, status codes and JSON shapes.
+ */
+public class ReactiveCatalogHandler {
+
+    /**
+     * Rows requested from the database ahead of what the HTTP connection has consumed. A slow
+     * client stops the stream after this many buffered rows instead of growing the heap.
+     */
+    static final int EXPORT_PREFETCH = 256;
+
+    private final ReactiveCatalogRepository repository;
+
+    public ReactiveCatalogHandler(ReactiveCatalogRepository repository) {
+        this.repository = repository;
+    }
+
+    public Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        return list(request, repository::findViewsAfter, BookView::getId);
+    }
+
+    public Mono<ServerResponse> exportBooks(ServerRequest request) {
+        Flux<BookView> books = repository.streamAllViews().limitRate(EXPORT_PREFETCH);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(books, BookView.class);
+    }
+
+    public Mono<ServerResponse> getBookById(ServerRequest request) {
+        return okOrNotFound(repository.findViewById(id(request)));
+    }
+
+    public Mono<ServerResponse> createBook(ServerRequest request) {
+        return request.bodyToMono(Book.class)
+                .flatMap(repository::insertBook)
+                .flatMap(book -> ServerResponse.ok().bodyValue(book));
+    }
+
+    public Mono<ServerResponse> updateBook(ServerRequest request) {
+        long id = id(request);
+        return request.bodyToMono(Book.class).flatMap(updatedBook -> repository.findBookVersionById(id)
+                .flatMap(version -> {
+                    if (updatedBook.getVersion() != null && !updatedBook.getVersion().equals(version)) {
+                        return ServerResponse.status(HttpStatus.CONFLICT).build();
+                    }
+                    return repository.updateBook(id, version, updatedBook).flatMap(rows -> rows == 0
+                            ? ServerResponse.status(HttpStatus.CONFLICT).build()
+                            : okOrNotFound(repository.findViewById(id)));
+                })
+                .switchIfEmpty(ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> deleteBook(ServerRequest request) {
+        return noContentOrNotFound(repository.deleteBook(id(request)));
+    }
+
+    public Mono<ServerResponse> getAllAuthors(ServerRequest request) {
+        return list(request, repository::findAuthorsAfter, Author::getId);
+    }
+
+    public Mono<ServerResponse> getAuthorById(ServerRequest request) {
+        return okOrNotFound(repository.findAuthorById(id(request)));
+    }
+
+    public Mono<ServerResponse> createAuthor(ServerRequest request) {
+        return conflictOnDuplicateName(request.bodyToMono(Author.class)
+                .flatMap(repository::insertAuthor)
+                .flatMap(author -> ServerResponse.ok().bodyValue(author)));
+    }
+
+    public Mono<ServerResponse> updateAuthor(ServerRequest request) {
+        long id = id(request);
+        return conflictOnDuplicateName(
+                request.bodyToMono(Author.class).flatMap(author -> okOrNotFound(repository.updateAuthor(id, author))));
+    }
+
+    public Mono<ServerResponse> deleteAuthor(ServerRequest request) {
+        return noContentOrNotFound(repository.deleteAuthor(id(request)));
+    }
+
+    public Mono<ServerResponse> getAllGenres(ServerRequest request) {
+        return list(request, repository::findGenresAfter, Genre::getId);
+    }
+
+    public Mono<ServerResponse> getGenreById(ServerRequest request) {
+        return okOrNotFound(repository.findGenreById(id(request)));
+    }
+
+    public Mono<ServerResponse> createGenre(ServerRequest request) {
+        return conflictOnDuplicateName(request.bodyToMono(Genre.class)
+                .flatMap(repository::insertGenre)
+                .flatMap(genre -> ServerResponse.ok().bodyValue(genre)));
+    }
+
+    public Mono<ServerResponse> updateGenre(ServerRequest request) {
+        long id = id(request);
+        return conflictOnDuplicateName(
+                request.bodyToMono(Genre.class).flatMap(genre -> okOrNotFound(repository.updateGenre(id, genre))));
+    }
+
+    public Mono<ServerResponse> deleteGenre(ServerRequest request) {
+        return noContentOrNotFound(repository.deleteGenre(id(request)));
+    }
+
+    private <T> Mono<ServerResponse> list(ServerRequest request, PageQuery<T> query, Function<T, Long> idOf) {
+        int pageSize = KeysetPage.limit(intParam(request, "limit"));
+        long after = KeysetPage.after(longParam(request, "after"), request.queryParam("cursor").orElse(null));
+        return page(request, query.find(after, pageSize + 1), pageSize, idOf);
+    }
+
+    /**
+     * Same contract as {@code KeysetPage.of}: one row more than the page size was fetched, and
+     * its presence adds the cursor and {@code Link} headers for the next page.
+     */
+    private static <T> Mono<ServerResponse> page(ServerRequest request, Flux<T> rows, int limit, Function<T, Long> idOf) {
+        return rows.collectList().flatMap(list -> {
+            if (list.size() <= limit) {
+                return ServerResponse.ok().bodyValue(list);
+            }
+            List<T> page = list.subList(0, limit);
+            String next = KeysetPage.encode(idOf.apply(page.get(limit - 1)));
+            String link = UriComponentsBuilder.fromUri(request.uri())
+                    .replaceQueryParam("after")
+                    .replaceQueryParam("cursor", next)
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            return ServerResponse.ok()
+                    .header(KeysetPage.NEXT_CURSOR_HEADER, next)
+                    .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"")
+                    .bodyValue(page);
+        });
+    }
+
+    private static Mono<ServerResponse> okOrNotFound(Mono<?> body) {
+        return body.flatMap(value -> ServerResponse.ok().bodyValue(value))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    /**
+     * Author and genre names are unique ignoring case; a taken name is a {@code 409}, as in the
+     * servlet application.
+     */
+    private static Mono<ServerResponse> conflictOnDuplicateName(Mono<ServerResponse> response) {
+        return response.onErrorResume(DataIntegrityViolationException.class,
+                e -> ServerResponse.status(HttpStatus.CONFLICT).build());
+    }
+
+    private static Mono<ServerResponse> noContentOrNotFound(Mono<Long> deletedRows) {
+        return deletedRows.flatMap(rows -> rows > 0
+                ? ServerResponse.noContent().build()
+                : ServerResponse.notFound().build());
+    }
+
+    private static long id(ServerRequest request) {
+        return parse(request.pathVariable("id"), "id", Long::valueOf);
+    }
+
+    private static Long longParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> parse(value, name, Long::valueOf)).orElse(null);
+    }
+
+    private static Integer intParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> parse(value, name, Integer::valueOf)).orElse(null);
+    }
+
+    private static <T> T parse(String value, String name, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<T> {
+        Flux<T> find(long after, int limit);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.books.reactive;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Non-blocking access to the {@code books}, {@code authors} and {@code genres} tables that the
+ * JPA entities map, using the same columns and id sequences so both stacks can share a database.
+ * <p>
+ * Ids come from the JPA sequences. Hibernate's pooled optimizer hands out
+ * {@code (v - }{@value #SEQUENCE_INCREMENT}{@code , v]} for every value {@code v} it draws, so a
+ * value drawn here is never used by the JPA stack. Each insert draws one value and uses it
+ * as-is; the rest of its block is skipped.
+ */
+public class ReactiveCatalogRepository {
+
+    /** Must match {@code allocationSize} of the entities' sequence generators. */
+    static final int SEQUENCE_INCREMENT = 50;
+
+    static final String BOOKS_SEQUENCE = "books_seq";
+    static final String AUTHORS_SEQUENCE = "authors_seq";
+    static final String GENRES_SEQUENCE = "genres_seq";
+
+    private static final String SELECT_VIEW = "select b.id, b.title, b.author_id, a.name as author_name,"
+            + " b.genre_id, g.name as genre_name, b.price, b.quantity_available, b.version"
+            + " from books b left join authors a on a.id = b.author_id left join genres g on g.id = b.genre_id";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean sequenceTables;
+
+    public ReactiveCatalogRepository(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                     ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        // MySQL has no sequences; Hibernate emulates them with one-row tables.
+        this.sequenceTables = connectionFactory.getMetadata().getName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    public Flux<BookView> findViewsAfter(long after, int limit) {
+        return databaseClient.sql(SELECT_VIEW + " where b.id > :after order by b.id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveCatalogRepository::toView)
+                .all();
+    }
+
+    /**
+     * All books in id order. Rows are pulled from the driver as the subscriber requests them.
+     */
+    public Flux<BookView> streamAllViews() {
+        return databaseClient.sql(SELECT_VIEW + " order by b.id")
+                .map(ReactiveCatalogRepository::toView)
+                .all();
+    }
+
+    public Mono<BookView> findViewById(long id) {
+        return databaseClient.sql(SELECT_VIEW + " where b.id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogRepository::toView)
+                .one();
+    }
+
+    public Mono<Long> findBookVersionById(long id) {
+        return databaseClient.sql("select version from books where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Mono<BookView> insertBook(Book book) {
+        return nextId(BOOKS_SEQUENCE).flatMap(id -> databaseClient.sql("insert into books"
+                                + " (id, title, author_id, genre_id, price, quantity_available, version)"
+                                + " values (:id, :title, :authorId, :genreId, :price, :quantityAvailable, 0)")
+                        .bind("id", id)
+                        .bindValues(bookValues(book))
+                        .then()
+                        .then(findViewById(id)));
+    }
+
+    /**
+     * Updates the book only while its version is still {@code version}; emits the number of
+     * updated rows, i.e. 0 when a concurrent update got there first.
+     */
+    public Mono<Long> updateBook(long id, long version, Book book) {
+        return databaseClient.sql("update books set title = :title, author_id = :authorId, genre_id = :genreId,"
+                        + " price = :price, quantity_available = :quantityAvailable, version = version + 1"
+                        + " where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .bindValues(bookValues(book))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteBook(long id) {
+        return delete("books", id);
+    }
+
+    public Flux<Author> findAuthorsAfter(long after, int limit) {
+        return findNamedAfter("authors", after, limit, ReactiveCatalogRepository::toAuthor);
+    }
+
+    public Mono<Author> findAuthorById(long id) {
+        return findNamedById("authors", id, ReactiveCatalogRepository::toAuthor);
+    }
+
+    public Mono<Author> insertAuthor(Author author) {
+        return insertNamed("authors", AUTHORS_SEQUENCE, author.getName(), ReactiveCatalogRepository::toAuthor);
+    }
+
+    public Mono<Author> updateAuthor(long id, Author author) {
+        return updateNamed("authors", id, author.getName(), ReactiveCatalogRepository::toAuthor);
+    }
+
+    public Mono<Long> deleteAuthor(long id) {
+        return delete("authors", id);
+    }
+
+    public Flux<Genre> findGenresAfter(long after, int limit) {
+        return findNamedAfter("genres", after, limit, ReactiveCatalogRepository::toGenre);
+    }
+
+    public Mono<Genre> findGenreById(long id) {
+        return findNamedById("genres", id, ReactiveCatalogRepository::toGenre);
+    }
+
+    public Mono<Genre> insertGenre(Genre genre) {
+        return insertNamed("genres", GENRES_SEQUENCE, genre.getName(), ReactiveCatalogRepository::toGenre);
+    }
+
+    public Mono<Genre> updateGenre(long id, Genre genre) {
+        return updateNamed("genres", id, genre.getName(), ReactiveCatalogRepository::toGenre);
+    }
+
+    public Mono<Long> deleteGenre(long id) {
+        return delete("genres", id);
+    }
+
+    /**
+     * Draws the next value of a JPA sequence in its own short transaction, so that on MySQL the
+     * sequence row is not locked for the rest of the insert.
+     */
+    Mono<Long> nextId(String sequence) {
+        Mono<Long> next;
+        if (sequenceTables) {
+            next = databaseClient.sql("update " + sequence + " set next_val = last_insert_id(next_val + "
+                            + SEQUENCE_INCREMENT + ")")
+                    .then()
+                    .then(databaseClient.sql("select last_insert_id() - " + SEQUENCE_INCREMENT)
+                            .map(row -> row.get(0, Number.class).longValue())
+                            .one());
+        } else {
+            next = databaseClient.sql("select next value for " + sequence)
+                    .map(row -> row.get(0, Number.class).longValue())
+                    .one();
+        }
+        return transactionalOperator.transactional(next);
+    }
+
+    private <T> Flux<T> findNamedAfter(String table, long after, int limit, Function<Readable, T> mapper) {
+        return databaseClient.sql("select id, name, version from " + table
+                        + " where id > :after order by id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(mapper::apply)
+                .all();
+    }
+
+    private <T> Mono<T> findNamedById(String table, long id, Function<Readable, T> mapper) {
+        return databaseClient.sql("select id, name, version from " + table + " where id = :id")
+                .bind("id", id)
+                .map(mapper::apply)
+                .one();
+    }
+
+    private <T> Mono<T> insertNamed(String table, String sequence, String name, Function<Readable, T> mapper) {
+        return nextId(sequence).flatMap(id -> databaseClient.sql("insert into " + table
+                        + " (id, name, version) values (:id, :name, 0)")
+                .bind("id", id)
+                .bind("name", nullable(name, String.class))
+                .then()
+                .then(findNamedById(table, id, mapper)));
+    }
+
+    private <T> Mono<T> updateNamed(String table, long id, String name, Function<Readable, T> mapper) {
+        return databaseClient.sql("update " + table + " set name = :name, version = version + 1 where id = :id")
+                .bind("id", id)
+                .bind("name", nullable(name, String.class))
+                .fetch()
+                .rowsUpdated()
+                .filter(rows -> rows > 0)
+                .flatMap(rows -> findNamedById(table, id, mapper));
+    }
+
+    private Mono<Long> delete(String table, long id) {
+        return databaseClient.sql("delete from " + table + " where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Map<String, Object> bookValues(Book book) {
+        return Map.of(
+                "title", nullable(book.getTitle(), String.class),
+                "authorId", nullable(book.getAuthor() != null ? book.getAuthor().getId() : null, Long.class),
+                "genreId", nullable(book.getGenre() != null ? book.getGenre().getId() : null, Long.class),
+                "price", book.getPrice(),
+                "quantityAvailable", book.getQuantityAvailable());
+    }
+
+    /**
+     * {@code value}, or a typed null where it is missing: drivers cannot bind an untyped null.
+     */
+    private static Object nullable(Object value, Class<?> type) {
+        return value != null ? value : Parameters.in(type);
+    }
+
+    private static Author toAuthor(Readable row) {
+        Author author = new Author(row.get("id", Long.class), row.get("name", String.class));
+        author.setVersion(row.get("version", Long.class));
+        return author;
+    }
+
+    private static Genre toGenre(Readable row) {
+        Genre genre = new Genre(row.get("id", Long.class), row.get("name", String.class));
+        genre.setVersion(row.get("version", Long.class));
+        return genre;
+    }
+
+    private static BookView toView(Readable row) {
+        return new BookView(row.get("id", Long.class), row.get("title", String.class),
+                row.get("author_id", Long.class), row.get("author_name", String.class),
+                row.get("genre_id", Long.class), row.get("genre_name", String.class),
+                row.get("price", Double.class), row.get("quantity_available", Integer.class),
+                row.get("version", Long.class));
+    }
+}
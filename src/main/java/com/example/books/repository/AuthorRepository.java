@@ -1,9 +1,59 @@
 package com.example.books.repository;
 
+import com.example.books.dto.BookView;
 import com.example.books.model.Author;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Long>{
+public interface AuthorRepository extends JpaRepository<Author, Long>, AuthorRepositoryCustom {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Streams every author as an id/name pair without loading entities. Must be consumed inside
+     * a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + BookRepository.EXPORT_FETCH_SIZE))
+    @Query("select new com.example.books.dto.BookView$Reference(a.id, a.name) from Author a")
+    Stream<BookView.Reference> streamAllReferences();
+
+    /**
+     * The author whose name equals {@code name} in any case, found through the unique
+     * {@code name_key} index.
+     */
+    @Query("select a from Author a where a.nameKey = lower(:name)")
+    Optional<Author> findByName(@Param("name") String name);
+
+    /**
+     * Id/name pairs of the authors with one of the given {@link NameKey}s, for resolving names in bulk.
+     */
+    @Query("select new com.example.books.dto.BookView$Reference(a.id, a.name) from Author a where a.nameKey in :keys")
+    List<BookView.Reference> findReferencesByNameKeyIn(@Param("keys") Collection<String> keys);
+
+    /**
+     * Renames an author without loading it and bumps its version. When {@code version} is not
+     * {@code null}, the rename only applies at that version.
+     *
+     * @return 1 if the author was renamed, 0 if it does not exist or is at another version
+     */
+    @Transactional
+    @Modifying
+    @Query("update Author a set a.name = :name, a.version = a.version + 1 "
+            + "where a.id = :id and (:version is null or a.version = :version)")
+    int rename(@Param("id") Long id, @Param("name") String name, @Param("version") Long version);
 }
@@ -0,0 +1,32 @@
+package com.example.books.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class AuthorRepositoryCustomImpl implements AuthorRepositoryCustom {
+
+    private final NamedUpsert upsert;
+
+    @Autowired
+    AuthorRepositoryCustomImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.upsert = new NamedUpsert(entityManager, jdbcTemplate, transactionManager, "authors", "authors_seq");
+    }
+
+    @Override
+    public Long findIdByName(String name) {
+        return upsert.findIdByName(name);
+    }
+
+    @Override
+    public long nextId() {
+        return upsert.nextId();
+    }
+
+    @Override
+    public long insertIfAbsent(long id, String name) {
+        return upsert.insertIfAbsent(id, name);
+    }
+}
@@ -1,9 +1,131 @@
 package com.example.books.repository;
 
+import com.example.books.config.CacheConfig;
+import com.example.books.dto.BookView;
 import com.example.books.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Selects books together with their author and genre in one statement, straight into
+     * {@link BookView} instances so nothing enters the persistence context.
+     */
+    String SELECT_VIEW = "select new com.example.books.dto.BookView(b.id, b.title, a.id, a.name, g.id, g.name, "
+            + "b.price, b.quantityAvailable, b.version) from Book b left join b.author a left join b.genre g";
+
+    @Query(SELECT_VIEW + " where b.id > :after order by b.id")
+    List<BookView> findViewsAfter(@Param("after") Long after, Limit limit);
+
+    @Query(SELECT_VIEW + " where b.id in :ids")
+    List<BookView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#p0", unless = "#result == null")
+    @Query(SELECT_VIEW + " where b.id = :id")
+    Optional<BookView> findViewById(@Param("id") Long id);
+
+    /**
+     * Atomically takes {@code quantity} units of stock if at least that many are available.
+     *
+     * @return 1 if the stock was taken, 0 if the book does not exist or has too little stock
+     */
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.quantityAvailable = b.quantityAvailable - :quantity, b.version = b.version + 1 "
+            + "where b.id = :id and b.quantityAvailable >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Atomically returns {@code quantity} units of stock.
+     *
+     * @return 1 if the book exists, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.quantityAvailable = b.quantityAvailable + :quantity, b.version = b.version + 1 "
+            + "where b.id = :id")
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Applies an aggregated stock delta (negative for net reservations) without any bound check;
+     * used by the write-behind inventory flush, which has already enforced the bound in memory.
+     *
+     * @return 1 if the book exists, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.quantityAvailable = b.quantityAvailable + :delta, b.version = b.version + 1 "
+            + "where b.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
+
+    @Query("select b.quantityAvailable from Book b where b.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    /**
+     * The author, genre and price that a change to the book's stock counts towards in
+     * {@code CatalogStatsService}, read without joining either table.
+     */
+    @Query("select b.author.id as authorId, b.genre.id as genreId, b.price as price from Book b where b.id = :id")
+    Optional<StockGroups> findStockGroupsById(@Param("id") Long id);
+
+    /**
+     * Streams every book as a {@link BookView}. Must be consumed inside a transaction and
+     * closed afterwards; rows are fetched from the driver {@link #EXPORT_FETCH_SIZE} at a time.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW)
+    Stream<BookView> streamAllViews();
+
+    /**
+     * Full-scan totals per genre, with a {@code null} id for books without one. Only used to
+     * check the running totals of {@code CatalogStatsService}.
+     */
+    @Query("select b.genre.id as id, count(b) as books, sum(b.quantityAvailable) as stock, "
+            + "sum(round(b.price * 100, 0) * b.quantityAvailable) as valueCents from Book b group by b.genre.id")
+    List<GroupTotals> sumByGenre();
+
+    /**
+     * Full-scan totals per author, with a {@code null} id for books without one.
+     */
+    @Query("select b.author.id as id, count(b) as books, sum(b.quantityAvailable) as stock, "
+            + "sum(round(b.price * 100, 0) * b.quantityAvailable) as valueCents from Book b group by b.author.id")
+    List<GroupTotals> sumByAuthor();
+
+    interface StockGroups {
+
+        Long getAuthorId();
+
+        Long getGenreId();
+
+        double getPrice();
+    }
+
+    interface GroupTotals {
+
+        Long getId();
+
+        Long getBooks();
+
+        Long getStock();
+
+        Double getValueCents();
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.books.repository;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Book;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BookRepositoryCustom {
+
+    /**
+     * Same projection as {@link BookRepository#SELECT_VIEW}, restricted by a {@link Specification}
+     * built from {@link BookSpecifications} and ordered by {@code sort}.
+     */
+    List<BookView> findViews(Specification<Book> filter, BookSort sort, Limit limit);
+
+    /**
+     * Sets only the given attributes of one book with a single update statement and bumps its
+     * version, without loading it. {@code author} and {@code genre} take ids, or {@code null}.
+     * When {@code expectedVersion} is not {@code null}, the update only applies at that version.
+     *
+     * @return 1 if the book was updated, 0 if it does not exist or is at another version
+     * @throws IllegalArgumentException if a referenced author or genre does not exist
+     */
+    int patch(Long id, Long expectedVersion, Map<String, Object> changes);
+}
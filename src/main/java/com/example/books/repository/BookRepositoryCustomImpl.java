@@ -0,0 +1,88 @@
+package com.example.books.repository;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookView> findViews(Specification<Book> filter, BookSort sort, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookView> query = cb.createQuery(BookView.class);
+        Root<Book> book = query.from(Book.class);
+        Join<Book, Author> author = book.join("author", JoinType.LEFT);
+        Join<Book, Genre> genre = book.join("genre", JoinType.LEFT);
+        query.select(cb.construct(BookView.class, book.get("id"), book.get("title"), author.get("id"),
+                author.get("name"), genre.get("id"), genre.get("name"), book.get("price"),
+                book.get("quantityAvailable"), book.get("version")));
+        Predicate where = filter != null ? filter.toPredicate(book, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(sort.orders(book, cb));
+        TypedQuery<BookView> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int patch(Long id, Long expectedVersion, Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object value = switch (change.getKey()) {
+                case "author" -> reference(Author.class, "author", (Long) change.getValue());
+                case "genre" -> reference(Genre.class, "genre", (Long) change.getValue());
+                default -> change.getValue();
+            };
+            Path<Object> path = book.get(change.getKey());
+            update.set(path, value);
+        }
+        Path<Long> version = book.get("version");
+        update.set(version, cb.sum(version, 1L));
+        Predicate where = cb.equal(book.get("id"), id);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(version, expectedVersion));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private <T> T reference(Class<T> type, String name, Long id) {
+        if (id == null) {
+            return null;
+        }
+        // find rather than getReference: it checks existence, usually from the second-level cache.
+        T entity = entityManager.find(type, id);
+        if (entity == null) {
+            throw new IllegalArgumentException(name + " " + id + " does not exist");
+        }
+        return entity;
+    }
+}
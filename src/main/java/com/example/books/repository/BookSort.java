@@ -0,0 +1,139 @@
+package com.example.books.repository;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Book;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sort order of a book listing, always completed by the id in the same direction so every row
+ * has a unique position a keyset cursor can resume from.
+ * <p>
+ * Cursor payloads are {@code id:<id>}, {@code price:<id>:<price>} or {@code title:<id>:<title>};
+ * a title cursor without the last part stands for a null title. Both MySQL and H2 sort NULL
+ * below every value, which {@link #after(String)} relies on instead of an explicit
+ * {@code NULLS FIRST} that MySQL would emulate without the index.
+ */
+public final class BookSort {
+
+    public enum Field {
+        ID, PRICE, TITLE
+    }
+
+    public static final BookSort DEFAULT = new BookSort(Field.ID, false);
+
+    private final Field field;
+    private final boolean descending;
+
+    private BookSort(Field field, boolean descending) {
+        this.field = field;
+        this.descending = descending;
+    }
+
+    /**
+     * Parses {@code <field>[,asc|desc]}, e.g. {@code price,desc}; null means {@link #DEFAULT}.
+     *
+     * @throws IllegalArgumentException for unknown fields or directions
+     */
+    public static BookSort parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+        String[] parts = value.split(",", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid sort: " + value);
+        }
+        Field field = Field.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+        String direction = parts.length == 2 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Invalid sort direction: " + direction);
+        }
+        return new BookSort(field, direction.equals("desc"));
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public String cursorOf(BookView book) {
+        return switch (field) {
+            case ID -> "id:" + book.getId();
+            case PRICE -> "price:" + book.getId() + ":" + book.getPrice();
+            case TITLE -> "title:" + book.getId() + (book.getTitle() != null ? ":" + book.getTitle() : "");
+        };
+    }
+
+    /**
+     * Restricts a listing to the rows after the cursor position.
+     *
+     * @throws IllegalArgumentException if the payload does not belong to this sort field
+     */
+    public Specification<Book> after(String payload) {
+        String prefix = field.name().toLowerCase(Locale.ROOT) + ":";
+        if (!payload.startsWith(prefix)) {
+            throw new IllegalArgumentException("Cursor does not match sort " + field);
+        }
+        String[] parts = payload.substring(prefix.length()).split(":", 2);
+        long id = Long.parseLong(parts[0]);
+        if (field == Field.ID) {
+            if (parts.length != 1) {
+                throw new IllegalArgumentException(payload);
+            }
+            return (book, query, cb) -> beyond(cb, book.get("id"), id);
+        }
+        if (field == Field.PRICE) {
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(payload);
+            }
+            double price = Double.parseDouble(parts[1]);
+            if (!Double.isFinite(price)) {
+                throw new IllegalArgumentException(payload);
+            }
+            return (book, query, cb) -> cb.or(beyond(cb, book.get("price"), price),
+                    cb.and(cb.equal(book.get("price"), price), beyond(cb, book.get("id"), id)));
+        }
+        String title = parts.length == 2 ? parts[1] : null;
+        return (book, query, cb) -> {
+            Path<String> column = book.get("title");
+            Predicate sameTitle;
+            Predicate pastTitle;
+            if (title == null) {
+                sameTitle = cb.isNull(column);
+                pastTitle = descending ? cb.disjunction() : cb.isNotNull(column);
+            } else {
+                sameTitle = cb.equal(column, title);
+                pastTitle = descending ? cb.or(cb.lessThan(column, title), cb.isNull(column))
+                        : cb.greaterThan(column, title);
+            }
+            return cb.or(pastTitle, cb.and(sameTitle, beyond(cb, book.get("id"), id)));
+        };
+    }
+
+    List<Order> orders(Root<Book> book, CriteriaBuilder cb) {
+        Path<Long> id = book.get("id");
+        if (field == Field.ID) {
+            return List.of(order(cb, id));
+        }
+        return List.of(order(cb, book.get(field.name().toLowerCase(Locale.ROOT))), order(cb, id));
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> expression) {
+        return descending ? cb.desc(expression) : cb.asc(expression);
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate beyond(CriteriaBuilder cb, Expression<? extends Y> column, Y value) {
+        return descending ? cb.lessThan(column, value) : cb.greaterThan(column, value);
+    }
+}
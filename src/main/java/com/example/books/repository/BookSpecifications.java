@@ -0,0 +1,43 @@
+package com.example.books.repository;
+
+import com.example.books.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters for {@link BookRepositoryCustom#findViews}. Each one is null-safe: a null argument
+ * yields a null specification, which {@link Specification#where} and {@code and} ignore.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> filter(Long genreId, Long authorId, Double minPrice, Double maxPrice,
+                                             Boolean inStock) {
+        return Specification.where(hasGenre(genreId))
+                .and(hasAuthor(authorId))
+                .and(priceAtLeast(minPrice))
+                .and(priceAtMost(maxPrice))
+                .and(Boolean.TRUE.equals(inStock) ? inStock() : null);
+    }
+
+    public static Specification<Book> hasGenre(Long genreId) {
+        return genreId == null ? null : (book, query, cb) -> cb.equal(book.get("genre").get("id"), genreId);
+    }
+
+    public static Specification<Book> hasAuthor(Long authorId) {
+        return authorId == null ? null : (book, query, cb) -> cb.equal(book.get("author").get("id"), authorId);
+    }
+
+    public static Specification<Book> priceAtLeast(Double minPrice) {
+        return minPrice == null ? null : (book, query, cb) -> cb.greaterThanOrEqualTo(book.get("price"), minPrice);
+    }
+
+    public static Specification<Book> priceAtMost(Double maxPrice) {
+        return maxPrice == null ? null : (book, query, cb) -> cb.lessThanOrEqualTo(book.get("price"), maxPrice);
+    }
+
+    public static Specification<Book> inStock() {
+        return (book, query, cb) -> cb.greaterThan(book.get("quantityAvailable"), 0);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.books.repository;
+
+import com.example.books.model.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+}
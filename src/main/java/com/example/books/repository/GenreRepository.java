@@ -1,9 +1,50 @@
 package com.example.books.repository;
 
+import com.example.books.dto.BookView;
 import com.example.books.model.Genre;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface GenreRepository extends JpaRepository<Genre, Long>{
+public interface GenreRepository extends JpaRepository<Genre, Long>, GenreRepositoryCustom {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Genre> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * The genre whose name equals {@code name} in any case, found through the unique
+     * {@code name_key} index.
+     */
+    @Query("select g from Genre g where g.nameKey = lower(:name)")
+    Optional<Genre> findByName(@Param("name") String name);
+
+    /**
+     * Id/name pairs of the genres with one of the given {@link NameKey}s, for resolving names in bulk.
+     */
+    @Query("select new com.example.books.dto.BookView$Reference(g.id, g.name) from Genre g where g.nameKey in :keys")
+    List<BookView.Reference> findReferencesByNameKeyIn(@Param("keys") Collection<String> keys);
+
+    /**
+     * Renames a genre without loading it and bumps its version. When {@code version} is not
+     * {@code null}, the rename only applies at that version.
+     *
+     * @return 1 if the genre was renamed, 0 if it does not exist or is at another version
+     */
+    @Transactional
+    @Modifying
+    @Query("update Genre g set g.name = :name, g.version = g.version + 1 "
+            + "where g.id = :id and (:version is null or g.version = :version)")
+    int rename(@Param("id") Long id, @Param("name") String name, @Param("version") Long version);
 }
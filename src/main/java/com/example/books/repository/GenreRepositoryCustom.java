@@ -0,0 +1,23 @@
+package com.example.books.repository;
+
+public interface GenreRepositoryCustom {
+
+    /**
+     * Id of the genre with this name in any case, or null. Reads through JDBC, so outside a
+     * transaction the connection is given back at once rather than held by the request's session.
+     */
+    Long findIdByName(String name);
+
+    /**
+     * Draws an id for {@link #insertIfAbsent} from the genres' sequence.
+     */
+    long nextId();
+
+    /**
+     * Inserts a genre named {@code name} with {@code id}, unless one with the same name in any
+     * case exists. Runs in the caller's transaction; the entity listeners are bypassed.
+     *
+     * @return {@code id} if the genre was inserted, otherwise the id of the existing one
+     */
+    long insertIfAbsent(long id, String name);
+}
@@ -0,0 +1,17 @@
+package com.example.books.repository;
+
+import java.util.Locale;
+
+/**
+ * The normalized form of an author or genre name, as stored in the {@code name_key} column that
+ * the database computes with {@code lower(name)}.
+ */
+public final class NameKey {
+
+    private NameKey() {
+    }
+
+    public static String of(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.books.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Insert-if-absent on the unique {@code name_key} index of {@code authors} or {@code genres},
+ * with the database's own conflict handling: {@code insert ... on duplicate key update} on MySQL,
+ * {@code merge} elsewhere. Concurrent callers with the same name all end up with the id of the
+ * one row that holds it.
+ * <p>
+ * Ids drawn by {@link #nextId()} come from the entity's sequence the way
+ * {@code ReactiveCatalogRepository} draws them: one value per insert, never handed out by
+ * Hibernate's pooled optimizer.
+ */
+final class NamedUpsert {
+
+    /** Must match {@code allocationSize} of the entities' sequence generators. */
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final String table;
+    private final String sequence;
+    private volatile Boolean mysql;
+
+    NamedUpsert(EntityManager entityManager, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                String table, String sequence) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.table = table;
+        this.sequence = sequence;
+    }
+
+    Long findIdByName(String name) {
+        List<Long> ids = jdbcTemplate.queryForList("select id from " + table + " where name_key = lower(?)",
+                Long.class, name);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Draws the next value of the sequence in its own short transaction, so that on MySQL the
+     * sequence row is not locked for the rest of the caller's transaction.
+     */
+    long nextId() {
+        boolean sequenceTables = mysql();
+        return ownTransaction.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                if (sequenceTables) {
+                    // MySQL has no sequences; Hibernate emulates them with one-row tables.
+                    statement.executeUpdate("update " + sequence + " set next_val = last_insert_id(next_val + "
+                            + SEQUENCE_INCREMENT + ")");
+                }
+                try (ResultSet result = statement.executeQuery(sequenceTables
+                        ? "select last_insert_id() - " + SEQUENCE_INCREMENT
+                        : "select next value for " + sequence)) {
+                    result.next();
+                    return result.getLong(1);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Inserts a row with {@code id} and {@code name} unless one with the same name in any case
+     * exists, then reads the id of the row holding the name. Must run inside a transaction. The read locks that row, which also
+     * makes it see a row just committed by a concurrent caller.
+     *
+     * @return {@code id} if the row was inserted, otherwise the id of the existing row
+     */
+    long insertIfAbsent(long id, String name) {
+        try {
+            if (mysql()) {
+                jdbcTemplate.update("insert into " + table + " (id, name, version) values (?, ?, 0) "
+                        + "on duplicate key update id = id", id, name);
+            } else {
+                jdbcTemplate.update("merge into " + table + " t using (select cast(? as bigint) id, "
+                        + "cast(? as varchar(255)) name) s on (t.name_key = lower(s.name)) "
+                        + "when not matched then insert (id, name, version) values (s.id, s.name, 0)", id, name);
+            }
+        } catch (DuplicateKeyException e) {
+            // a concurrent merge inserted the name first
+        }
+        Long holder = jdbcTemplate.queryForObject("select id from " + table + " where name_key = lower(?) for update",
+                Long.class, name);
+        if (holder == id) {
+            invalidateCachedQueries();
+        }
+        return holder;
+    }
+
+    /**
+     * Does for the plain JDBC insert what Hibernate does for its own: cached query results over
+     * the table are bypassed from now on and dropped once the transaction completes.
+     */
+    private void invalidateCachedQueries() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        String[] spaces = {table};
+        timestamps.preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((success, completed) -> timestamps.invalidate(spaces, completed));
+    }
+
+    private boolean mysql() {
+        Boolean mysql = this.mysql;
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+            this.mysql = mysql;
+        }
+        return mysql;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.books.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a request may run now. Every request has a cost, and is admitted only if its
+ * client has that many tokens left and the cost in flight across all clients stays within
+ * {@code books.admission.max-concurrency}. A request that does not fit is refused at once rather
+ * than queued, together with how long the client should wait before it tries again.
+ * <p>
+ * Each client's bucket refills at {@code books.admission.rate} tokens a second and holds up to
+ * {@code books.admission.burst}. It is kept as the single time at which it will be full again
+ * (the generic cell rate algorithm, which admits exactly what a token bucket would), so both
+ * checks are a compare-and-set on one number and take no lock. Full buckets carry nothing worth
+ * keeping and are dropped by {@link #prune()}; while {@code books.admission.max-clients} buckets
+ * are still refilling, further clients share one.
+ */
+@Service
+public class AdmissionControl {
+
+    public enum Outcome {
+        ADMITTED,
+        /** The client has used up its tokens. */
+        RATE_LIMITED,
+        /** The cost in flight is at the limit. */
+        OVERLOADED
+    }
+
+    /**
+     * {@code retryAfter} is zero for admitted requests.
+     */
+    public record Decision(Outcome outcome, Duration retryAfter) {
+    }
+
+    /**
+     * Nothing says when requests in flight will finish; a second is a guess clients can live with.
+     */
+    static final Duration OVERLOADED_RETRY = Duration.ofSeconds(1);
+
+    private static final Decision ADMITTED = new Decision(Outcome.ADMITTED, Duration.ZERO);
+    private static final Decision OVERLOADED = new Decision(Outcome.OVERLOADED, OVERLOADED_RETRY);
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong sharedBucket = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Nanoseconds it takes to refill one token. */
+    private final long tokenNanos;
+
+    private final int burst;
+
+    private final int maxConcurrency;
+
+    private final int maxClients;
+
+    @Autowired
+    public AdmissionControl(@Value("${books.admission.rate:50}") double rate,
+                            @Value("${books.admission.burst:100}") int burst,
+                            @Value("${books.admission.max-concurrency:64}") int maxConcurrency,
+                            @Value("${books.admission.max-clients:10000}") int maxClients) {
+        if (rate <= 0 || burst < 1 || maxConcurrency < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("books.admission.rate, burst, max-concurrency and max-clients must be positive");
+        }
+        this.tokenNanos = Math.max(1, Math.round(1e9 / rate));
+        this.burst = burst;
+        this.maxConcurrency = maxConcurrency;
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Admits a request of {@code cost} from {@code client}, or says why not. An admitted request
+     * must be {@link #release released} with the same cost once it completes. Costs above the
+     * burst or the concurrency limit are capped there, so that every request can run eventually.
+     */
+    public Decision admit(String client, int cost) {
+        long now = System.nanoTime();
+        long charge = Math.min(cost, burst) * tokenNanos;
+        long limit = burst * tokenNanos;
+        AtomicLong bucket = bucket(client, now);
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + charge;
+            if (next - now > limit) {
+                return new Decision(Outcome.RATE_LIMITED, Duration.ofNanos(next - now - limit));
+            }
+            if (bucket.compareAndSet(full, next)) {
+                break;
+            }
+        }
+        int units = Math.min(cost, maxConcurrency);
+        while (true) {
+            int current = inFlight.get();
+            if (current + units > maxConcurrency) {
+                // not the client's fault: give its tokens back
+                bucket.addAndGet(-charge);
+                return OVERLOADED;
+            }
+            if (inFlight.compareAndSet(current, current + units)) {
+                return ADMITTED;
+            }
+        }
+    }
+
+    public void release(int cost) {
+        inFlight.addAndGet(-Math.min(cost, maxConcurrency));
+    }
+
+    /**
+     * Cost of the requests admitted and not yet released.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Clients with a bucket of their own.
+     */
+    public int clients() {
+        return buckets.size();
+    }
+
+    /**
+     * Drops the buckets that have refilled completely. A request charged to one just as it goes
+     * is lost, which lets that client one request further, never one fewer.
+     */
+    @Scheduled(fixedDelayString = "${books.admission.prune-interval-ms:10000}")
+    public void prune() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private AtomicLong bucket(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            return sharedBucket;
+        }
+        AtomicLong created = new AtomicLong(now);
+        bucket = buckets.putIfAbsent(client, created);
+        return bucket != null ? bucket : created;
+    }
+}
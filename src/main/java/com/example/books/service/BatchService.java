@@ -0,0 +1,206 @@
+package com.example.books.service;
+
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.BatchItemResult.Status;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies bulk create, update and delete requests in chunks of {@link #CHUNK_SIZE}, one
+ * transaction per chunk, so Hibernate can send each chunk as JDBC batches.
+ * <p>
+ * When a chunk fails it is rolled back and replayed one element per transaction. Only the
+ * offending elements are then reported as {@link Status#FAILED}.
+ */
+@Service
+public class BatchService {
+
+    public static final int MAX_ITEMS = 10_000;
+
+    static final int CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BatchService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> List<BatchItemResult> create(List<T> items, JpaRepository<T, Long> repository,
+                                            Function<T, Long> idOf, BiConsumer<T, Long> setId) {
+        return inChunks(items, item -> null, "item is required", (chunk, indexes) -> {
+            List<Long> requestedIds = chunk.stream().map(idOf).toList();
+            List<T> saved;
+            try {
+                saved = repository.saveAll(chunk);
+                entityManager.flush();
+            } catch (RuntimeException e) {
+                // ids handed out by the rolled-back persist must not leak into the retry
+                for (int i = 0; i < chunk.size(); i++) {
+                    setId.accept(chunk.get(i), requestedIds.get(i));
+                }
+                throw e;
+            }
+            List<BatchItemResult> results = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(BatchItemResult.of(indexes[i], idOf.apply(saved.get(i)), Status.CREATED));
+            }
+            return results;
+        });
+    }
+
+    public <T> List<BatchItemResult> update(List<T> items, JpaRepository<T, Long> repository,
+                                            Function<T, Long> idOf, BiConsumer<T, T> apply) {
+        return update(items, repository, idOf, item -> null, apply);
+    }
+
+    /**
+     * Like {@link #update(List, JpaRepository, Function, BiConsumer)}, but an element whose
+     * version is set and no longer matches the stored one is left alone and reported as
+     * {@link Status#CONFLICT}.
+     */
+    public <T> List<BatchItemResult> update(List<T> items, JpaRepository<T, Long> repository,
+                                            Function<T, Long> idOf, Function<T, Long> versionOf,
+                                            BiConsumer<T, T> apply) {
+        return inChunks(items, idOf, "item is required", (chunk, indexes) -> {
+            List<Long> ids = chunk.stream().map(idOf).filter(Objects::nonNull).toList();
+            Map<Long, T> existing = byId(repository.findAllById(ids), idOf);
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = idOf.apply(chunk.get(i));
+                T target = id != null ? existing.get(id) : null;
+                if (id == null) {
+                    results.add(BatchItemResult.failed(indexes[i], null, "id is required"));
+                } else if (target == null) {
+                    results.add(BatchItemResult.of(indexes[i], id, Status.NOT_FOUND));
+                } else if (versionOf.apply(chunk.get(i)) != null
+                        && !versionOf.apply(chunk.get(i)).equals(versionOf.apply(target))) {
+                    results.add(BatchItemResult.of(indexes[i], id, Status.CONFLICT));
+                } else {
+                    apply.accept(target, chunk.get(i));
+                    results.add(BatchItemResult.of(indexes[i], id, Status.UPDATED));
+                }
+            }
+            return results;
+        });
+    }
+
+    public <T> List<BatchItemResult> delete(List<Long> ids, JpaRepository<T, Long> repository,
+                                            Function<T, Long> idOf) {
+        return delete(ids, repository, idOf, item -> { });
+    }
+
+    /**
+     * Like {@link #delete(List, JpaRepository, Function)}, but also hands every deleted entity,
+     * as it was loaded, to {@code onDelete} inside the chunk's transaction.
+     */
+    public <T> List<BatchItemResult> delete(List<Long> ids, JpaRepository<T, Long> repository,
+                                            Function<T, Long> idOf, Consumer<T> onDelete) {
+        return inChunks(ids, Function.identity(), "id is required", (chunk, indexes) -> {
+            Map<Long, T> existing = byId(repository.findAllById(chunk), idOf);
+            repository.deleteAllByIdInBatch(existing.keySet());
+            // the batch delete bypasses the entity listeners
+            existing.values().forEach(changeLog::recordDelete);
+            existing.values().forEach(onDelete);
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = chunk.get(i);
+                results.add(BatchItemResult.of(indexes[i], id,
+                        existing.containsKey(id) ? Status.DELETED : Status.NOT_FOUND));
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Null elements are reported as {@code missing} without reaching the writer.
+     */
+    private <I> List<BatchItemResult> inChunks(List<I> items, Function<I, Long> keyOf, String missing,
+                                               ChunkWriter<I> writer) {
+        if (items.size() > MAX_ITEMS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch may contain at most " + MAX_ITEMS + " items");
+        }
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            List<I> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<Integer> indexes = new ArrayList<>(CHUNK_SIZE);
+            List<BatchItemResult> chunkResults = new ArrayList<>(CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + CHUNK_SIZE, items.size()); i++) {
+                if (items.get(i) == null) {
+                    chunkResults.add(BatchItemResult.failed(i, null, missing));
+                } else {
+                    chunk.add(items.get(i));
+                    indexes.add(i);
+                }
+            }
+            try {
+                chunkResults.addAll(write(chunk, indexes.stream().mapToInt(Integer::intValue).toArray(), writer));
+            } catch (RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    I item = chunk.get(i);
+                    try {
+                        chunkResults.addAll(write(List.of(item), new int[] {indexes.get(i)}, writer));
+                    } catch (RuntimeException itemFailure) {
+                        chunkResults.add(BatchItemResult.failed(indexes.get(i), keyOf.apply(item),
+                                NestedExceptionUtils.getMostSpecificCause(itemFailure).getMessage()));
+                    }
+                }
+            }
+            chunkResults.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+            results.addAll(chunkResults);
+        }
+        return results;
+    }
+
+    private <I> List<BatchItemResult> write(List<I> chunk, int[] indexes, ChunkWriter<I> writer) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BatchItemResult> results = writer.write(chunk, indexes);
+                entityManager.flush();
+                return results;
+            });
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> idOf) {
+        return entities.stream().collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    /**
+     * Writes the non-null elements of a chunk; {@code indexes} holds their positions in the request.
+     */
+    @FunctionalInterface
+    private interface ChunkWriter<I> {
+        List<BatchItemResult> write(List<I> chunk, int[] indexes);
+    }
+}
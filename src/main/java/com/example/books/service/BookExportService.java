@@ -0,0 +1,54 @@
+package com.example.books.service;
+
+import com.example.books.dto.BookView;
+import com.example.books.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON while the result set is still being read.
+ * <p>
+ * Rows are pulled through a forward-only stream in {@link BookRepository#EXPORT_FETCH_SIZE}
+ * batches and projected straight into {@link BookView}s, so nothing accumulates in the
+ * persistence context and heap use does not grow with the size of the table.
+ */
+@Service
+public class BookExportService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(BookView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<BookView> books = bookRepository.streamAllViews()) {
+            Iterator<BookView> iterator = books.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++written % BookRepository.EXPORT_FETCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        } finally {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.books.service;
+
+import com.example.books.dto.BookView;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over book titles and author names behind {@code GET /books/search}.
+ * <p>
+ * Terms live in sorted maps, so a query term matches every indexed term it is a prefix of with
+ * one range lookup instead of a scan. Author terms point at authors rather than books; renaming
+ * an author only touches that author's terms. A book matches when every query term matches its
+ * title or its author's name. Books are ranked by the sum of {@code field weight x idf} over the
+ * query terms, and prefix matches count for less than whole words.
+ * <p>
+ * The index is built from the database once the application is ready and kept in sync by
+ * {@link SearchIndexListener} after each committed write. Bulk JPQL deletes bypass entity
+ * listeners, so their callers must call {@link #removeBook(Long)} themselves.
+ */
+@Service
+public class BookSearchIndex {
+
+    public static final int MAX_RESULTS = 100;
+
+    static final double TITLE_WEIGHT = 2.0;
+    static final double AUTHOR_WEIGHT = 1.0;
+    static final double PREFIX_FACTOR = 0.5;
+
+    /** Shorter query terms only match whole words; a one-letter prefix would expand to most of the index. */
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final String[] NO_TERMS = new String[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> titlePostings = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> authorPostings = new TreeMap<>();
+    private final Map<Long, IndexedBook> books = new HashMap<>();
+    private final Map<Long, String[]> authorTerms = new HashMap<>();
+    private final Map<Long, Set<Long>> booksByAuthor = new HashMap<>();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titlePostings.clear();
+            authorPostings.clear();
+            books.clear();
+            authorTerms.clear();
+            booksByAuthor.clear();
+            try (Stream<BookView.Reference> authors = authorRepository.streamAllReferences()) {
+                authors.forEach(author -> addAuthor(author.getId(), author.getName()));
+            }
+            try (Stream<BookView> views = bookRepository.streamAllViews()) {
+                views.forEach(book -> addBook(book.getId(), book.getTitle(),
+                        book.getAuthor() != null ? book.getAuthor().getId() : null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putBook(Long id, String title, Long authorId) {
+        lock.writeLock().lock();
+        try {
+            removeBookLocked(id);
+            addBook(id, title, authorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBook(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeBookLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAuthor(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeAuthorLocked(id);
+            addAuthor(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAuthor(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeAuthorLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching books, best first, ties broken by ascending id.
+     */
+    public List<Long> search(String query, int limit) {
+        String[] terms = new LinkedHashSet<>(Arrays.asList(tokenize(query))).toArray(NO_TERMS);
+        if (terms.length == 0 || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : terms) {
+                Map<Long, Double> termScores = score(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases, strips diacritics and splits on anything that is not a letter or digit.
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_TERMS;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded)).filter(term -> !term.isEmpty()).toArray(String[]::new);
+    }
+
+    private Map<Long, Double> score(String term) {
+        int total = Math.max(1, books.size());
+        // Within a field keep the best expansion of a prefix; across fields add up.
+        Map<Long, Double> titleScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry : matching(titlePostings, term).entrySet()) {
+            double weight = TITLE_WEIGHT * factor(term, entry.getKey()) * idf(total, entry.getValue().size());
+            entry.getValue().forEach((bookId, frequency) -> titleScores.merge(bookId, weight * frequency, Math::max));
+        }
+        Map<Long, Double> authorScores = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : matching(authorPostings, term).entrySet()) {
+            int frequency = 0;
+            for (Long authorId : entry.getValue()) {
+                frequency += booksByAuthor.getOrDefault(authorId, Set.of()).size();
+            }
+            double weight = AUTHOR_WEIGHT * factor(term, entry.getKey()) * idf(total, frequency);
+            for (Long authorId : entry.getValue()) {
+                for (Long bookId : booksByAuthor.getOrDefault(authorId, Set.of())) {
+                    authorScores.merge(bookId, weight, Math::max);
+                }
+            }
+        }
+        authorScores.forEach((bookId, score) -> titleScores.merge(bookId, score, Double::sum));
+        return titleScores;
+    }
+
+    private static <V> NavigableMap<String, V> matching(NavigableMap<String, V> postings, String term) {
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            V exact = postings.get(term);
+            return exact != null ? new TreeMap<>(Map.of(term, exact)) : new TreeMap<>();
+        }
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    private static double factor(String queryTerm, String indexedTerm) {
+        return queryTerm.equals(indexedTerm) ? 1.0 : PREFIX_FACTOR;
+    }
+
+    private static double idf(int total, int frequency) {
+        return Math.log(1.0 + (double) total / Math.max(1, frequency));
+    }
+
+    private static List<Long> top(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> worstFirst = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(limit + 1, worstFirst);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(best.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private void addBook(Long id, String title, Long authorId) {
+        String[] terms = tokenize(title);
+        books.put(id, new IndexedBook(terms, authorId));
+        for (String term : terms) {
+            titlePostings.computeIfAbsent(term, t -> new HashMap<>()).merge(id, 1, Integer::sum);
+        }
+        if (authorId != null) {
+            booksByAuthor.computeIfAbsent(authorId, a -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeBookLocked(Long id) {
+        IndexedBook book = books.remove(id);
+        if (book == null) {
+            return;
+        }
+        for (String term : book.terms()) {
+            Map<Long, Integer> postings = titlePostings.get(term);
+            if (postings != null && postings.remove(id) != null && postings.isEmpty()) {
+                titlePostings.remove(term);
+            }
+        }
+        if (book.authorId() != null) {
+            Set<Long> authored = booksByAuthor.get(book.authorId());
+            if (authored != null && authored.remove(id) && authored.isEmpty()) {
+                booksByAuthor.remove(book.authorId());
+            }
+        }
+    }
+
+    private void addAuthor(Long id, String name) {
+        String[] terms = tokenize(name);
+        authorTerms.put(id, terms);
+        for (String term : terms) {
+            authorPostings.computeIfAbsent(term, t -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeAuthorLocked(Long id) {
+        String[] terms = authorTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> postings = authorPostings.get(term);
+            if (postings != null && postings.remove(id) && postings.isEmpty()) {
+                authorPostings.remove(term);
+            }
+        }
+    }
+
+    private record IndexedBook(String[] terms, Long authorId) {
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.books.service;
+
+import com.example.books.dto.ChangeBatch;
+import com.example.books.repository.CatalogChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Reader side of the catalog change outbox.
+ * <p>
+ * Outbox rows commit in any order, so a consumer paging by insertion id could skip a row that
+ * commits after it has moved past it. {@link #publish()} therefore numbers committed rows after
+ * the fact: every run gives the rows still without a {@code seq} the next consecutive numbers, so
+ * once a {@code seq} is visible no row can later appear below it. Concurrent publishers on other
+ * instances collide on the unique {@code seq} index and retry on their next run.
+ * <p>
+ * Consumers read published changes with {@link #read(long, int)}, or park a callback with
+ * {@link #await(long, int, Consumer)} that is run as soon as a later change is published.
+ */
+@Service
+public class CatalogChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeFeed.class);
+
+    static final int PUBLISH_BATCH = 5_000;
+
+    static final int PRUNE_BATCH = 10_000;
+
+    /** Highest published seq, and whether any row is still waiting for one. */
+    private static final String STATE = "select (select coalesce(max(seq), 0) from catalog_changes), "
+            + "(select count(*) from (select id from catalog_changes where seq is null limit 1) unpublished)";
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong localCommits = new AtomicLong();
+
+    // unpublished rows may be left over from before a restart
+    private volatile boolean unpublished = true;
+
+    private long lastPoll;
+
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${books.changes.poll-interval-ms:1000}")
+    private long pollIntervalMillis;
+
+    @Value("${books.changes.retention-hours:24}")
+    private long retentionHours;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CatalogChangeFeed(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The highest published {@code seq} seen by this instance.
+     */
+    public long head() {
+        return head.get();
+    }
+
+    /**
+     * A number that moves as soon as a transaction on this instance commits catalog changes, and
+     * when changes from anywhere are published. Caches of catalog reads compare it to tell whether
+     * what they hold may be out of date.
+     */
+    public long generation() {
+        return localCommits.get() + head.get();
+    }
+
+    /**
+     * Up to {@code limit} published changes after {@code since}, oldest first.
+     */
+    public ChangeBatch read(long since, int limit) {
+        return ChangeBatch.of(since, changeRepository.findBySeqGreaterThanOrderBySeqAsc(since, Limit.of(limit)));
+    }
+
+    /**
+     * Calls {@code deliver} once with the changes after {@code since}, as soon as there are any.
+     *
+     * @return cancels the wait; a no-op once the changes have been delivered
+     */
+    public Runnable await(long since, int limit, Consumer<ChangeBatch> deliver) {
+        Waiter waiter = new Waiter(since, limit, deliver);
+        waiters.add(waiter);
+        // a publish between the caller's read and add() would not have seen this waiter
+        if (head.get() > since) {
+            wake(waiter);
+        }
+        return () -> waiters.remove(waiter);
+    }
+
+    /**
+     * Tells the publisher that a transaction on this instance has committed outbox rows.
+     */
+    public void committed() {
+        localCommits.incrementAndGet();
+        unpublished = true;
+    }
+
+    /**
+     * Numbers the committed, unpublished outbox rows in id order and wakes the waiters. Runs right
+     * after local commits; otherwise only every {@code books.changes.poll-interval-ms}, with a single
+     * query, to pick up rows left by other instances and changes they published.
+     */
+    @Scheduled(fixedDelayString = "${books.changes.publish-interval-ms:100}")
+    public void publish() {
+        // a lock rather than synchronized, so a virtual thread waiting on JDBC does not pin its carrier
+        publishLock.lock();
+        try {
+            publishLocked();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void publishLocked() {
+        long now = System.nanoTime();
+        if (!unpublished && now - lastPoll < TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis)) {
+            return;
+        }
+        unpublished = false;
+        lastPoll = now;
+        long latest;
+        try {
+            long[] state = jdbcTemplate.queryForObject(STATE, (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)});
+            latest = state[0];
+            if (state[1] > 0) {
+                long before;
+                do {
+                    before = latest;
+                    long max = latest;
+                    latest = transactionTemplate.execute(status -> assignBatch(max));
+                } while (latest - before == PUBLISH_BATCH);
+            }
+        } catch (RuntimeException e) {
+            // most likely another instance publishing the same rows; try again next run
+            unpublished = true;
+            log.warn("Failed to publish catalog changes", e);
+            return;
+        }
+        long published = latest;
+        if (published > head.get()) {
+            head.set(published);
+            waiters.forEach(waiter -> {
+                if (waiter.since < published) {
+                    wake(waiter);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes published changes older than the retention period in batches of {@link #PRUNE_BATCH},
+     * always keeping the newest one. Consumers that fall behind the oldest remaining change have to
+     * reload and restart from {@link #head()}.
+     */
+    @Scheduled(fixedDelayString = "${books.changes.prune-interval-ms:60000}")
+    public void prune() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        Long through = jdbcTemplate.queryForObject(
+                "select max(seq) from catalog_changes where seq is not null and changed_at < ?", Long.class, cutoff);
+        Long oldest = jdbcTemplate.queryForObject("select min(seq) from catalog_changes", Long.class);
+        Long newest = jdbcTemplate.queryForObject("select max(seq) from catalog_changes", Long.class);
+        if (through == null || oldest == null) {
+            return;
+        }
+        long last = Math.min(through, newest - 1);
+        for (long from = oldest; from <= last; from += PRUNE_BATCH) {
+            jdbcTemplate.update("delete from catalog_changes where seq >= ? and seq < ?",
+                    from, Math.min(from + PRUNE_BATCH, last + 1));
+        }
+    }
+
+    /**
+     * Numbers up to {@link #PUBLISH_BATCH} unpublished rows after {@code max}.
+     *
+     * @return the new highest {@code seq}
+     */
+    private long assignBatch(long max) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select id from catalog_changes where seq is null order by id limit " + PUBLISH_BATCH, Long.class);
+        jdbcTemplate.batchUpdate("update catalog_changes set seq = ? where id = ?", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement update, int i) throws SQLException {
+                update.setLong(1, max + 1 + i);
+                update.setLong(2, ids.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+        return max + ids.size();
+    }
+
+    private void wake(Waiter waiter) {
+        if (!waiters.remove(waiter)) {
+            return;
+        }
+        try {
+            waiter.deliver.accept(read(waiter.since, waiter.limit));
+        } catch (RuntimeException e) {
+            log.warn("Failed to deliver catalog changes after {}", waiter.since, e);
+        }
+    }
+
+    private record Waiter(long since, int limit, Consumer<ChangeBatch> deliver) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.books.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Entity listener on books, authors and genres that records every flushed change in the
+ * {@link CatalogChangeLog} of the current transaction. Like {@link SearchIndexListener}, the log is
+ * looked up lazily because JPA test slices run without it.
+ */
+public class CatalogChangeListener {
+
+    @Autowired
+    private ObjectProvider<CatalogChangeLog> changeLog;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        CatalogChangeLog log = changeLog.getIfAvailable();
+        if (log != null) {
+            log.recordSave(entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        CatalogChangeLog log = changeLog.getIfAvailable();
+        if (log != null) {
+            log.recordDelete(entity);
+        }
+    }
+}
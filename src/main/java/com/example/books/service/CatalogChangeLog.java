@@ -0,0 +1,177 @@
+package com.example.books.service;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.CatalogChange.Operation;
+import com.example.books.model.CatalogChange.Type;
+import com.example.books.model.Genre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Writer side of the catalog change outbox. Changes are buffered per transaction and inserted
+ * into {@code catalog_changes} by a Hibernate before-completion process, which runs after the
+ * commit-time flush, so changes reported by entity listeners during that flush are included and
+ * the rows commit or roll back together with the change itself.
+ * <p>
+ * JPA writes are reported by {@link CatalogChangeListener}. Bulk statements bypass the listeners,
+ * so their callers record explicitly, either inside their own transaction or through
+ * {@link #recordUpdate(Type, Long, IntSupplier)}.
+ */
+@Service
+public class CatalogChangeLog {
+
+    private static final String INSERT =
+            "insert into catalog_changes (type, entity_id, operation, changed_at) values (?, ?, ?, ?)";
+
+    private static final Object PENDING_KEY = new Object();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CatalogChangeFeed changeFeed;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CatalogChangeLog(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordSave(Object entity) {
+        record(typeOf(entity), idOf(entity), Operation.UPSERT);
+    }
+
+    public void recordDelete(Object entity) {
+        record(typeOf(entity), idOf(entity), Operation.DELETE);
+    }
+
+    /**
+     * Adds a change to the outbox of the current transaction.
+     *
+     * @throws IllegalStateException when called outside a transaction
+     */
+    public void record(Type type, Long id, Operation operation) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Catalog changes can only be recorded inside a transaction");
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending == null) {
+            Pending created = new Pending();
+            entityManager.unwrap(EventSource.class).getActionQueue().registerProcess(created);
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeFeed.committed();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    // with open-in-view the session outlives a rolled-back transaction, so
+                    // make sure its process cannot write these changes later
+                    created.discard();
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+                }
+            });
+            pending = created;
+        }
+        pending.add(type, id, operation);
+    }
+
+    /**
+     * Runs a bulk UPDATE in a transaction, joining the caller's if there is one, and records an
+     * {@link Operation#UPSERT} of the row when the statement changed it.
+     *
+     * @return the statement's update count
+     */
+    public int recordUpdate(Type type, Long id, IntSupplier statement) {
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = statement.getAsInt();
+            if (count > 0) {
+                record(type, id, Operation.UPSERT);
+            }
+            return count;
+        });
+        return updated != null ? updated : 0;
+    }
+
+    private static Type typeOf(Object entity) {
+        if (entity instanceof Book) {
+            return Type.BOOK;
+        }
+        if (entity instanceof Author) {
+            return Type.AUTHOR;
+        }
+        if (entity instanceof Genre) {
+            return Type.GENRE;
+        }
+        throw new IllegalArgumentException("Not a catalog entity: " + entity.getClass().getName());
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity instanceof Book book) {
+            return book.getId();
+        }
+        if (entity instanceof Author author) {
+            return author.getId();
+        }
+        return ((Genre) entity).getId();
+    }
+
+    private record Change(Type type, Long id, Operation operation) {
+    }
+
+    private static final class Pending implements BeforeTransactionCompletionProcess {
+
+        private final List<Change> changes = new ArrayList<>();
+        private boolean done;
+
+        void add(Type type, Long id, Operation operation) {
+            changes.add(new Change(type, id, operation));
+        }
+
+        void discard() {
+            done = true;
+            changes.clear();
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (done || changes.isEmpty()) {
+                return;
+            }
+            done = true;
+            Timestamp now = Timestamp.from(Instant.now());
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    for (Change change : changes) {
+                        insert.setString(1, change.type().name());
+                        insert.setLong(2, change.id());
+                        insert.setString(3, change.operation().name());
+                        insert.setTimestamp(4, now);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+    }
+}
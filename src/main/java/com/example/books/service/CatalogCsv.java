@@ -0,0 +1,148 @@
+package com.example.books.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parsing for catalog CSV files: a header row naming the columns, then one book per record.
+ * Fields follow RFC 4180, so they may be quoted and quoted fields may contain commas, doubled
+ * quotes and line breaks. {@code title} and {@code price} are required; {@code author},
+ * {@code genre} and {@code quantityAvailable} are optional, and other columns are ignored.
+ */
+final class CatalogCsv {
+
+    /** Matches the default {@code varchar(255)} of the title and name columns. */
+    static final int MAX_TEXT_LENGTH = 255;
+
+    private final int title;
+    private final int author;
+    private final int genre;
+    private final int price;
+    private final int quantity;
+
+    private CatalogCsv(Map<String, Integer> columns) {
+        this.title = columns.getOrDefault("title", -1);
+        this.author = columns.getOrDefault("author", -1);
+        this.genre = columns.getOrDefault("genre", -1);
+        this.price = columns.getOrDefault("price", -1);
+        this.quantity = columns.getOrDefault("quantityavailable", -1);
+        if (title < 0 || price < 0) {
+            throw new IllegalArgumentException("The header must name a title and a price column");
+        }
+    }
+
+    static CatalogCsv fromHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return new CatalogCsv(columns);
+    }
+
+    /**
+     * Whether {@code record} ends inside a quoted field, so the next line continues it.
+     */
+    static boolean isOpen(CharSequence record) {
+        boolean open = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                open = !open;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Parses one record, or throws {@link IllegalArgumentException} with the reason to reject it.
+     */
+    Row parse(long line, String record) {
+        List<String> fields = split(record);
+        String titleValue = text(field(fields, title));
+        if (titleValue == null) {
+            throw new IllegalArgumentException("title is required");
+        }
+        String priceField = text(field(fields, price));
+        if (priceField == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        double priceValue;
+        try {
+            priceValue = Double.parseDouble(priceField);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price must be a number");
+        }
+        if (!(priceValue >= 0) || Double.isInfinite(priceValue)) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        String quantityField = text(field(fields, quantity));
+        int quantityValue;
+        try {
+            quantityValue = quantityField != null ? Integer.parseInt(quantityField) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantityAvailable must be a whole number");
+        }
+        if (quantityValue < 0) {
+            throw new IllegalArgumentException("quantityAvailable must not be negative");
+        }
+        return new Row(line, titleValue, text(field(fields, author)), text(field(fields, genre)), priceValue, quantityValue);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String text(String field) {
+        if (field == null || field.isBlank()) {
+            return null;
+        }
+        String trimmed = field.trim();
+        if (trimmed.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("values are limited to " + MAX_TEXT_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * A valid record, with blank optional fields as {@code null}; {@code line} is where it starts.
+     */
+    record Row(long line, String title, String author, String genre, double price, int quantityAvailable) {
+    }
+}
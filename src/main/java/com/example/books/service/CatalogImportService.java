@@ -0,0 +1,416 @@
+package com.example.books.service;
+
+import com.example.books.dto.BookView;
+import com.example.books.dto.ImportProgress;
+import com.example.books.dto.ImportProgress.Reject;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.CatalogChange;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.repository.NameKey;
+import com.example.books.service.CatalogCsv.Row;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Imports catalog CSV files (see {@link CatalogCsv}) of any size as a pipeline:
+ * <ul>
+ *     <li>the calling thread reads records and hands them to a pool of parsers in chunks of
+ *     {@link #CHUNK_SIZE}. At most two chunks per parser are in flight, so memory use does not
+ *     grow with the file;</li>
+ *     <li>a single writer commits the parsed chunks in file order, one transaction each. Author
+ *     and genre names are resolved through a map kept for the whole import: only names it has
+ *     not seen are looked up, in any case, and those missing from the database are inserted unless
+ *     a concurrent writer inserted them first, so every name ends up with exactly one id. Books
+ *     are inserted with one JDBC batch per chunk. Authors, genres and books all take their ids
+ *     from Hibernate's own sequence optimizers, so they cannot collide with ids handed out to
+ *     entities.</li>
+ * </ul>
+ * A chunk that violates a constraint is rolled back and replayed one record per transaction, and
+ * only the offending records are rejected. Any other failure ends the import; chunks committed
+ * before it stay. The inserts bypass the entity listeners, so the writer adds the new authors and
+ * books to the {@link BookSearchIndex} and the {@link CatalogChangeLog} itself.
+ */
+@Service
+public class CatalogImportService {
+
+    static final int CHUNK_SIZE = 5_000;
+
+    /** Longest record kept in memory while looking for the quote that closes a field. */
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final String INSERT_BOOK = "insert into books (id, title, author_id, genre_id, price, "
+            + "quantity_available, version) values (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CatalogImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reads the header row. Throws {@link IllegalArgumentException} when it does not describe a
+     * catalog, before anything is imported.
+     */
+    public CatalogImport open(InputStream csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), 1 << 16);
+        return new CatalogImport(reader, CatalogCsv.fromHeader(reader.readLine()));
+    }
+
+    public final class CatalogImport {
+
+        private final BufferedReader reader;
+        private final CatalogCsv format;
+        private final long started = System.nanoTime();
+
+        // Only touched by the writer thread; keyed by NameKey.
+        private final Map<String, Long> authorIds = new HashMap<>();
+        private final Map<String, Long> genreIds = new HashMap<>();
+        private long records;
+        private long imported;
+        private long rejected;
+
+        private CatalogImport(BufferedReader reader, CatalogCsv format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        /**
+         * Imports every record, calling {@code progress} on the writer thread after each chunk.
+         * Returns the final totals once the last chunk is committed.
+         */
+        public ImportProgress run(Consumer<ImportProgress> progress) throws IOException {
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            ExecutorService parsers = Executors.newFixedThreadPool(parallelism, daemonThreads("catalog-import-parser"));
+            ExecutorService writer = Executors.newSingleThreadExecutor(daemonThreads("catalog-import-writer"));
+            BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<>(2 * parallelism);
+            try {
+                Future<Void> writing = writer.submit(() -> write(chunks, progress));
+                read(parsers, chunks, writing);
+                enqueue(chunks, END, writing);
+                writing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                parsers.shutdownNow();
+                writer.shutdownNow();
+            }
+            return snapshot(true, List.of());
+        }
+
+        private void read(ExecutorService parsers, BlockingQueue<Future<Chunk>> chunks, Future<Void> writing)
+                throws IOException, InterruptedException, ExecutionException {
+            RawChunk raw = new RawChunk();
+            StringBuilder open = null;
+            long openedAt = 0;
+            long line = 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (open != null) {
+                    open.append('\n').append(text);
+                    if (open.length() > MAX_RECORD_LENGTH) {
+                        raw.reject(openedAt, "quoted field is not closed within " + MAX_RECORD_LENGTH + " characters");
+                        open = null;
+                    } else if (!CatalogCsv.isOpen(open)) {
+                        raw.add(openedAt, open.toString());
+                        open = null;
+                    }
+                } else if (text.indexOf('"') >= 0 && CatalogCsv.isOpen(text)) {
+                    open = new StringBuilder(text);
+                    openedAt = line;
+                } else if (!text.isEmpty()) {
+                    raw.add(line, text);
+                }
+                if (raw.size() == CHUNK_SIZE) {
+                    enqueue(chunks, parsers.submit(raw::parse), writing);
+                    raw = new RawChunk();
+                }
+            }
+            if (open != null) {
+                raw.reject(openedAt, "quoted field is not closed");
+            }
+            if (raw.size() > 0) {
+                enqueue(chunks, parsers.submit(raw::parse), writing);
+            }
+        }
+
+        private Void write(BlockingQueue<Future<Chunk>> chunks, Consumer<ImportProgress> progress)
+                throws InterruptedException, ExecutionException {
+            for (Future<Chunk> next = chunks.take(); next != END; next = chunks.take()) {
+                Chunk chunk = next.get();
+                List<Reject> rejects = new ArrayList<>(chunk.rejects());
+                try {
+                    insert(chunk.rows());
+                    imported += chunk.rows().size();
+                } catch (DataIntegrityViolationException e) {
+                    for (Row row : chunk.rows()) {
+                        try {
+                            insert(List.of(row));
+                            imported++;
+                        } catch (DataIntegrityViolationException rowFailure) {
+                            rejects.add(new Reject(row.line(),
+                                    NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage()));
+                        }
+                    }
+                    rejects.sort(Comparator.comparingLong(Reject::getLine));
+                }
+                records += chunk.records();
+                rejected += rejects.size();
+                progress.accept(snapshot(false, rejects));
+            }
+            return null;
+        }
+
+        private void insert(List<Row> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<String, Long> authors = new HashMap<>();
+            Map<String, Long> genres = new HashMap<>();
+            Map<Long, String> createdAuthors = new HashMap<>();
+            long[] ids = transactionTemplate.execute(status -> {
+                authors.putAll(resolve(rows, Row::author, authorIds, authorRepository::findReferencesByNameKeyIn,
+                        name -> insertIfAbsent(Author.class, CatalogChange.Type.AUTHOR, name,
+                                authorRepository::insertIfAbsent, createdAuthors)));
+                genres.putAll(resolve(rows, Row::genre, genreIds, genreRepository::findReferencesByNameKeyIn,
+                        name -> insertIfAbsent(Genre.class, CatalogChange.Type.GENRE, name,
+                                genreRepository::insertIfAbsent, new HashMap<>())));
+                long[] bookIds = nextIds(Book.class, rows.size());
+                jdbcTemplate.batchUpdate(INSERT_BOOK, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Row row = rows.get(i);
+                        statement.setLong(1, bookIds[i]);
+                        statement.setString(2, row.title());
+                        setId(statement, 3, authors.get(NameKey.of(row.author())));
+                        setId(statement, 4, genres.get(NameKey.of(row.genre())));
+                        statement.setDouble(5, row.price());
+                        statement.setInt(6, row.quantityAvailable());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+                for (long bookId : bookIds) {
+                    changeLog.record(CatalogChange.Type.BOOK, bookId, CatalogChange.Operation.UPSERT);
+                }
+                return bookIds;
+            });
+            authorIds.putAll(authors);
+            genreIds.putAll(genres);
+            createdAuthors.forEach(bookSearchIndex::putAuthor);
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                Long authorId = authors.get(NameKey.of(row.author()));
+                bookSearchIndex.putBook(ids[i], row.title(), authorId);
+                catalogStats.addBook(authorId, genres.get(NameKey.of(row.genre())), row.price(),
+                        row.quantityAvailable());
+            }
+        }
+
+        private ImportProgress snapshot(boolean done, List<Reject> rejects) {
+            return new ImportProgress(records, imported, rejected,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), done, rejects);
+        }
+
+        private final class RawChunk {
+
+            private final List<String> texts = new ArrayList<>(CHUNK_SIZE);
+            private final long[] lines = new long[CHUNK_SIZE];
+            private final List<Reject> rejects = new ArrayList<>();
+
+            void add(long line, String text) {
+                lines[texts.size()] = line;
+                texts.add(text);
+            }
+
+            void reject(long line, String reason) {
+                rejects.add(new Reject(line, reason));
+            }
+
+            int size() {
+                return texts.size() + rejects.size();
+            }
+
+            Chunk parse() {
+                List<Row> rows = new ArrayList<>(texts.size());
+                List<Reject> parseRejects = new ArrayList<>(rejects);
+                for (int i = 0; i < texts.size(); i++) {
+                    try {
+                        rows.add(format.parse(lines[i], texts.get(i)));
+                    } catch (IllegalArgumentException e) {
+                        parseRejects.add(new Reject(lines[i], e.getMessage()));
+                    }
+                }
+                parseRejects.sort(Comparator.comparingLong(Reject::getLine));
+                return new Chunk(size(), rows, parseRejects);
+            }
+        }
+    }
+
+    /**
+     * Ids for every distinct name in {@code rows}, by {@link NameKey}: from {@code known}, else
+     * from the database, else newly created. The first spelling of a name in the rows is the one
+     * created.
+     */
+    private static Map<String, Long> resolve(List<Row> rows, Function<Row, String> nameOf, Map<String, Long> known,
+                                             Function<Collection<String>, List<BookView.Reference>> findByKey,
+                                             Function<String, Long> create) {
+        Map<String, Long> ids = new HashMap<>();
+        Map<String, String> missing = new HashMap<>();
+        for (Row row : rows) {
+            String key = NameKey.of(nameOf.apply(row));
+            if (key != null && !ids.containsKey(key)) {
+                Long id = known.get(key);
+                if (id != null) {
+                    ids.put(key, id);
+                } else {
+                    missing.putIfAbsent(key, nameOf.apply(row));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (BookView.Reference existing : findByKey.apply(missing.keySet())) {
+                ids.put(NameKey.of(existing.getName()), existing.getId());
+            }
+            missing.forEach((key, name) -> ids.computeIfAbsent(key, absent -> create.apply(name)));
+        }
+        return ids;
+    }
+
+    /**
+     * Inserts an author or genre unless a concurrent writer has inserted the name first, and
+     * records the change when it was inserted here.
+     */
+    private long insertIfAbsent(Class<?> entityType, CatalogChange.Type type, String name,
+                                ToLongBiFunction<Long, String> insert, Map<Long, String> created) {
+        long id = nextIds(entityType, 1)[0];
+        long holder = insert.applyAsLong(id, name);
+        if (holder == id) {
+            changeLog.record(type, id, CatalogChange.Operation.UPSERT);
+            created.put(id, name);
+        }
+        return holder;
+    }
+
+    private long[] nextIds(Class<?> entityType, int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityType).getGenerator();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = ((Number) generator.generate(session, null)).longValue();
+        }
+        return ids;
+    }
+
+    private static void setId(PreparedStatement statement, int index, Long id) throws SQLException {
+        if (id != null) {
+            statement.setLong(index, id);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Waits for room in the queue, but gives up as soon as the writer has stopped taking chunks.
+     */
+    private static void enqueue(BlockingQueue<Future<Chunk>> chunks, Future<Chunk> chunk, Future<Void> writing)
+            throws InterruptedException, ExecutionException {
+        while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writing.isDone()) {
+                writing.get();
+                throw new IllegalStateException("The import writer stopped early");
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Chunk(int records, List<Row> rows, List<Reject> rejects) {
+    }
+}
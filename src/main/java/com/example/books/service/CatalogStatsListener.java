@@ -0,0 +1,91 @@
+package com.example.books.service;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener that reports {@link Book} writes to {@link CatalogStatsService} with the
+ * state before and after them. Unlike a JPA entity listener it sees the state Hibernate loaded,
+ * so the service does not have to remember every book to work out what a write changed.
+ */
+@Component
+public class CatalogStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStatsListener.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Book) {
+            catalogStats.change(null, entryOf(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Book book)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            // not loaded in this session; the next reconciliation picks the change up
+            log.debug("Book {} was updated without its previous state", book.getId());
+            return;
+        }
+        catalogStats.change(entryOf(event.getPersister(), event.getOldState()),
+                entryOf(event.getPersister(), event.getState()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Book) {
+            catalogStats.change(entryOf(event.getPersister(), event.getDeletedState()), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static CatalogStatsService.Entry entryOf(EntityPersister persister, Object[] state) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        Author author = (Author) state[metamodel.getPropertyIndex("author")];
+        Genre genre = (Genre) state[metamodel.getPropertyIndex("genre")];
+        return CatalogStatsService.Entry.of(author != null ? author.getId() : null,
+                genre != null ? genre.getId() : null,
+                (Double) state[metamodel.getPropertyIndex("price")],
+                (Integer) state[metamodel.getPropertyIndex("quantityAvailable")]);
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.books.service;
+
+import com.example.books.dto.BookView;
+import com.example.books.dto.CatalogStats;
+import com.example.books.dto.CatalogSummary;
+import com.example.books.model.Book;
+import com.example.books.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Book count, stock and stock value per genre, per author and for the whole catalog, kept up to
+ * date by every committed book write instead of being computed from {@code books} on request.
+ * <p>
+ * Only the totals are kept. A write reports the book's genre, author, price and stock before and
+ * after it, and the difference is applied to the groups it leaves and joins once the transaction
+ * commits. Values are summed in whole cents, and writers only touch {@link LongAdder}s, so
+ * concurrent reservations do not contend on a genre.
+ * <p>
+ * {@link CatalogStatsListener} reports JPA writes with the state Hibernate loaded. Bulk statements
+ * and JDBC inserts bypass it, so their callers report the change themselves: reservations and
+ * write-behind flushes through {@link #adjustStock(Long, int)}, partial updates through
+ * {@link #updateBook(BookView, BookView)}, imports through {@code addBook}, batch deletes through
+ * {@link #removeBook(Book)}. Writes made outside this process (another instance, the reactive
+ * variant, manual SQL) are only picked up by {@link #reconcile()}.
+ */
+@Service
+public class CatalogStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStatsService.class);
+
+    /** Stands for "no author" or "no genre"; sequence-generated ids start at 1. */
+    private static final long NONE = 0L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile State state = new State();
+
+    /** Writes reported while {@link #rebuild()} queries the table, replayed onto what it built. */
+    private Queue<Consumer<State>> replay;
+
+    /** Groups that differed from the table on the previous reconciliation. */
+    private Set<String> drifted = Set.of();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    /**
+     * Builds the totals from a {@code GROUP BY} over {@code books} into a new state while reads
+     * and writes carry on with the current one. Writes reported during the queries are applied to
+     * both, and replayed onto the new state before it replaces the current one, so the lock is
+     * only held for the swap. A write that commits just as the queries start can be counted twice;
+     * the next reconciliations find and rebuild that group.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        State rebuilt = new State();
+        Queue<Consumer<State>> writes = new ConcurrentLinkedQueue<>();
+        withWriteLock(() -> replay = writes);
+        try {
+            for (BookRepository.GroupTotals row : bookRepository.sumByGenre()) {
+                long valueCents = Math.round(row.getValueCents());
+                rebuilt.total.add(row.getBooks(), row.getStock(), valueCents);
+                if (row.getId() != null) {
+                    rebuilt.genres.computeIfAbsent(row.getId(), id -> new Totals())
+                            .add(row.getBooks(), row.getStock(), valueCents);
+                }
+            }
+            for (BookRepository.GroupTotals row : bookRepository.sumByAuthor()) {
+                if (row.getId() != null) {
+                    rebuilt.authors.computeIfAbsent(row.getId(), id -> new Totals())
+                            .add(row.getBooks(), row.getStock(), Math.round(row.getValueCents()));
+                }
+            }
+        } catch (RuntimeException e) {
+            withWriteLock(() -> replay = null);
+            throw e;
+        }
+        withWriteLock(() -> {
+            writes.forEach(write -> write.accept(rebuilt));
+            replay = null;
+            state = rebuilt;
+        });
+    }
+
+    public void addBook(Long authorId, Long genreId, double price, int quantityAvailable) {
+        change(null, Entry.of(authorId, genreId, price, quantityAvailable));
+    }
+
+    public void updateBook(BookView before, BookView after) {
+        change(entryOf(before), entryOf(after));
+    }
+
+    public void removeBook(Book book) {
+        change(Entry.of(book.getAuthor() != null ? book.getAuthor().getId() : null,
+                book.getGenre() != null ? book.getGenre().getId() : null,
+                book.getPrice(), book.getQuantityAvailable()), null);
+    }
+
+    /**
+     * Applies a stock change made by a bulk update, to the groups the book is in now. Unknown
+     * books are ignored; they were deleted meanwhile and are picked up by the next reconciliation.
+     */
+    public void adjustStock(Long id, int delta) {
+        bookRepository.findStockGroupsById(id).ifPresent(book -> {
+            Entry entry = Entry.of(book.getAuthorId(), book.getGenreId(), book.getPrice(), 0);
+            whenCommitted(() -> write(current -> current.add(entry, 0, delta)));
+        });
+    }
+
+    /**
+     * Moves a book from {@code before} to {@code after}, either of which is {@code null} when the
+     * book did not or no longer exists, once the current transaction commits.
+     */
+    void change(Entry before, Entry after) {
+        whenCommitted(() -> write(current -> {
+            if (before != null) {
+                current.add(before, -1, -before.stock());
+            }
+            if (after != null) {
+                current.add(after, 1, after.stock());
+            }
+        }));
+    }
+
+    public CatalogStats genre(Long id) {
+        return stats(current -> current.genres, id);
+    }
+
+    public CatalogStats author(Long id) {
+        return stats(current -> current.authors, id);
+    }
+
+    public CatalogSummary summary() {
+        lock.readLock().lock();
+        try {
+            State current = state;
+            Map<Long, CatalogStats> byGenre = new TreeMap<>();
+            current.genres.forEach((id, totals) -> {
+                CatalogStats stats = totals.snapshot();
+                if (stats.getBooks() > 0) {
+                    byGenre.put(id, stats);
+                }
+            });
+            return new CatalogSummary(current.total.snapshot(), byGenre);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the running totals with a full {@code GROUP BY} over {@code books}, every
+     * {@code books.stats.reconcile-interval-ms} (10 minutes by default). A write committing while
+     * the queries run can make a group differ once, so the totals are only rebuilt from the table
+     * when a group still differs on the next run.
+     *
+     * @return whether every group matched the table
+     */
+    @Scheduled(fixedDelayString = "${books.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${books.stats.reconcile-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public synchronized boolean reconcile() {
+        State current = state;
+        Set<String> differences = new HashSet<>();
+        List<BookRepository.GroupTotals> byGenre = bookRepository.sumByGenre();
+        compare("genre", current.genres, byGenre, differences);
+        compare("author", current.authors, bookRepository.sumByAuthor(), differences);
+        long books = 0;
+        long stock = 0;
+        long valueCents = 0;
+        for (BookRepository.GroupTotals row : byGenre) {
+            books += row.getBooks();
+            stock += row.getStock();
+            valueCents += Math.round(row.getValueCents());
+        }
+        if (!current.total.matches(books, stock, valueCents)) {
+            differences.add("total");
+        }
+        if (differences.isEmpty()) {
+            drifted = Set.of();
+            return true;
+        }
+        Set<String> persistent = new HashSet<>(differences);
+        persistent.retainAll(drifted);
+        if (persistent.isEmpty()) {
+            log.debug("Catalog stats differ from the books table for {}; checking again next run", differences);
+            drifted = differences;
+            return false;
+        }
+        log.warn("Catalog stats drifted from the books table for {}; rebuilding", persistent);
+        rebuild();
+        drifted = Set.of();
+        return false;
+    }
+
+    private static void whenCommitted(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void write(Consumer<State> write) {
+        lock.readLock().lock();
+        try {
+            write.accept(state);
+            Queue<Consumer<State>> writes = replay;
+            if (writes != null) {
+                writes.add(write);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private CatalogStats stats(Function<State, Map<Long, Totals>> groups, Long id) {
+        lock.readLock().lock();
+        try {
+            Totals totals = groups.apply(state).get(id);
+            return totals != null ? totals.snapshot() : CatalogStats.EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void compare(String kind, Map<Long, Totals> groups, List<BookRepository.GroupTotals> rows,
+                                Set<String> differences) {
+        Set<Long> seen = new HashSet<>();
+        for (BookRepository.GroupTotals row : rows) {
+            if (row.getId() == null) {
+                continue;
+            }
+            seen.add(row.getId());
+            Totals totals = groups.get(row.getId());
+            long valueCents = Math.round(row.getValueCents());
+            if (totals == null || !totals.matches(row.getBooks(), row.getStock(), valueCents)) {
+                differences.add(kind + " " + row.getId());
+            }
+        }
+        groups.forEach((id, totals) -> {
+            if (!seen.contains(id) && !totals.matches(0, 0, 0)) {
+                differences.add(kind + " " + id);
+            }
+        });
+    }
+
+    private static Entry entryOf(BookView book) {
+        return Entry.of(book.getAuthor() != null ? book.getAuthor().getId() : null,
+                book.getGenre() != null ? book.getGenre().getId() : null,
+                book.getPrice(), book.getQuantityAvailable());
+    }
+
+    /**
+     * What places a book in the totals.
+     */
+    record Entry(long authorId, long genreId, long priceCents, int stock) {
+
+        static Entry of(Long authorId, Long genreId, double price, int stock) {
+            return new Entry(authorId != null ? authorId : NONE, genreId != null ? genreId : NONE,
+                    Math.round(price * 100), stock);
+        }
+    }
+
+    private static final class State {
+
+        private final ConcurrentHashMap<Long, Totals> genres = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, Totals> authors = new ConcurrentHashMap<>();
+        private final Totals total = new Totals();
+
+        void add(Entry entry, int books, long stock) {
+            long valueCents = entry.priceCents() * stock;
+            total.add(books, stock, valueCents);
+            if (entry.genreId() != NONE) {
+                genres.computeIfAbsent(entry.genreId(), id -> new Totals()).add(books, stock, valueCents);
+            }
+            if (entry.authorId() != NONE) {
+                authors.computeIfAbsent(entry.authorId(), id -> new Totals()).add(books, stock, valueCents);
+            }
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder books = new LongAdder();
+        private final LongAdder stock = new LongAdder();
+        private final LongAdder valueCents = new LongAdder();
+
+        void add(long books, long stock, long valueCents) {
+            this.books.add(books);
+            this.stock.add(stock);
+            this.valueCents.add(valueCents);
+        }
+
+        boolean matches(long books, long stock, long valueCents) {
+            return this.books.sum() == books && this.stock.sum() == stock && this.valueCents.sum() == valueCents;
+        }
+
+        CatalogStats snapshot() {
+            return new CatalogStats(books.sum(), stock.sum(), valueCents.sum() / 100.0);
+        }
+    }
+}
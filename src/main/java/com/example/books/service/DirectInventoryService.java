@@ -0,0 +1,53 @@
+package com.example.books.service;
+
+import com.example.books.model.CatalogChange;
+import com.example.books.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies every reservation to the {@code books} row with a single conditional UPDATE, recorded
+ * in the catalog change outbox in the same transaction.
+ */
+@Service
+@ConditionalOnProperty(name = "books.inventory.write-behind.enabled", havingValue = "false", matchIfMissing = true)
+public class DirectInventoryService implements InventoryService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Override
+    public Result reserve(Long bookId, int quantity) {
+        if (changeLog.recordUpdate(CatalogChange.Type.BOOK, bookId,
+                () -> bookRepository.reserveStock(bookId, quantity)) == 1) {
+            catalogStats.adjustStock(bookId, -quantity);
+            return Result.OK;
+        }
+        return bookRepository.existsById(bookId) ? Result.INSUFFICIENT_STOCK : Result.NOT_FOUND;
+    }
+
+    @Override
+    public Result release(Long bookId, int quantity) {
+        if (changeLog.recordUpdate(CatalogChange.Type.BOOK, bookId,
+                () -> bookRepository.releaseStock(bookId, quantity)) == 1) {
+            catalogStats.adjustStock(bookId, quantity);
+            return Result.OK;
+        }
+        return Result.NOT_FOUND;
+    }
+
+    @Override
+    public void invalidate(Long bookId) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.books.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Responses to requests sent with an {@code Idempotency-Key}, so that a retried write returns the
+ * first response instead of being applied again.
+ * <p>
+ * A key is claimed before the request runs. Requests arriving with the same key while it runs are
+ * told so at once, rather than holding a thread until it finishes. Successful responses are kept for
+ * {@code books.idempotency.retention}; when the request fails the key is released, since nothing
+ * was written and a retry may simply run again. Keys are compared together with a fingerprint of
+ * the request, and a key reused for a different request is refused.
+ * <p>
+ * The keys live in a concurrent map, bounded by {@code books.idempotency.max-entries} and trimmed
+ * oldest first; all keys share one retention period, so insertion order is also expiry order. With
+ * {@code books.idempotency.persist} on, every key is also inserted into {@code idempotency_keys}
+ * before the request runs: the primary key makes sure only one instance runs it, and the stored
+ * response answers retries that reach another instance or arrive after a restart.
+ */
+@Service
+public class IdempotencyStore {
+
+    public enum Outcome {
+        /** The key is now claimed; run the request, then {@link #complete} or {@link #release} it. */
+        EXECUTE,
+        /** The request already ran; answer with {@link Claim#response()}. */
+        REPLAY,
+        /** The key was used for a different request. */
+        MISMATCH,
+        /** A request with the key is still running. */
+        IN_PROGRESS
+    }
+
+    public record Claim(Outcome outcome, Response response) {
+    }
+
+    /**
+     * A stored response; {@code headers} holds names and values in turn.
+     */
+    public record Response(int status, String contentType, String[] headers, byte[] body) {
+    }
+
+    private static final Claim EXECUTE = new Claim(Outcome.EXECUTE, null);
+    private static final Claim MISMATCH = new Claim(Outcome.MISMATCH, null);
+    private static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, null);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Queue<Entry> expiries = new ConcurrentLinkedQueue<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration retention;
+
+    private final int maxEntries;
+
+    private final boolean persist;
+
+    @Autowired
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${books.idempotency.retention:24h}") Duration retention,
+                            @Value("${books.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${books.idempotency.persist:false}") boolean persist) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.maxEntries = maxEntries;
+        this.persist = persist;
+    }
+
+    public Claim claim(String key, byte[] fingerprint) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry entry = new Entry(key, fingerprint, now + retention.toNanos());
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                expiries.add(entry);
+                trim(now);
+                Claim claim = persist ? claimRow(entry) : EXECUTE;
+                if (claim != null) {
+                    return claim;
+                }
+                continue;
+            }
+            if (existing.expiresAt - now < 0) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!MessageDigest.isEqual(existing.fingerprint, fingerprint)) {
+                return MISMATCH;
+            }
+            if (!existing.response.isDone()) {
+                return IN_PROGRESS;
+            }
+            Response response = existing.response.join();
+            if (response != null) {
+                return new Claim(Outcome.REPLAY, response);
+            }
+            // the request failed and released the key; this one runs it again
+        }
+    }
+
+    /**
+     * Stores the response of a claimed key for the retries to come.
+     */
+    public void complete(String key, Response response) {
+        Entry entry = entries.get(key);
+        if (persist) {
+            jdbcTemplate.update("update idempotency_keys set status = ?, content_type = ?, headers = ?, body = ? "
+                            + "where idempotency_key = ?",
+                    response.status(), response.contentType(), encodeHeaders(response.headers()), response.body(), key);
+        }
+        if (entry != null) {
+            entry.response.complete(response);
+        }
+    }
+
+    /**
+     * Gives up a claimed key after its request failed; the next request with the key runs again.
+     */
+    public void release(String key) {
+        Entry entry = entries.get(key);
+        if (persist) {
+            jdbcTemplate.update("delete from idempotency_keys where idempotency_key = ? and status is null", key);
+        }
+        if (entry != null && entries.remove(key, entry)) {
+            entry.response.complete(null);
+        }
+    }
+
+    /**
+     * Keys currently held in memory.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${books.idempotency.prune-interval-ms:60000}")
+    public void prune() {
+        trim(System.nanoTime());
+        if (persist) {
+            jdbcTemplate.update("delete from idempotency_keys where created_at < ?",
+                    Timestamp.from(Instant.now().minus(retention)));
+        }
+    }
+
+    /**
+     * Inserts the key's row, or reads the row another instance inserted.
+     *
+     * @return {@code null} when the row went away in between and the claim has to start over
+     */
+    private Claim claimRow(Entry entry) {
+        try {
+            jdbcTemplate.update("insert into idempotency_keys (idempotency_key, fingerprint, created_at) values (?, ?, ?)",
+                    entry.key, entry.fingerprint, Timestamp.from(Instant.now()));
+            return EXECUTE;
+        } catch (DuplicateKeyException e) {
+            // fall through and read what is there
+        }
+        List<Row> rows = jdbcTemplate.query("select fingerprint, status, content_type, headers, body, created_at "
+                        + "from idempotency_keys where idempotency_key = ?",
+                (rs, i) -> new Row(rs.getBytes(1), (Integer) rs.getObject(2), rs.getString(3), rs.getString(4),
+                        rs.getBytes(5), rs.getTimestamp(6).toInstant()), entry.key);
+        Row row = rows.isEmpty() ? null : rows.get(0);
+        if (row != null && row.createdAt.isBefore(Instant.now().minus(retention))) {
+            jdbcTemplate.update("delete from idempotency_keys where idempotency_key = ? and created_at = ?",
+                    entry.key, Timestamp.from(row.createdAt));
+            row = null;
+        }
+        if (row == null || row.status == null || !MessageDigest.isEqual(row.fingerprint, entry.fingerprint)) {
+            // not ours to run: drop the entry so that the next request looks again
+            entries.remove(entry.key, entry);
+            entry.response.complete(null);
+            if (row == null) {
+                return null;
+            }
+            return row.status == null ? IN_PROGRESS : MISMATCH;
+        }
+        Response response = new Response(row.status, row.contentType, decodeHeaders(row.headers), row.body);
+        entry.response.complete(response);
+        return new Claim(Outcome.REPLAY, response);
+    }
+
+    /**
+     * Drops expired keys and, while there are more than {@code books.idempotency.max-entries},
+     * the oldest finished ones. A key whose request is still running stops the trim.
+     */
+    private void trim(long now) {
+        Entry oldest;
+        while ((oldest = expiries.peek()) != null) {
+            boolean expired = oldest.expiresAt - now < 0;
+            boolean current = entries.get(oldest.key) == oldest;
+            if (current && !expired && (entries.size() <= maxEntries || !oldest.response.isDone())) {
+                return;
+            }
+            if (expiries.remove(oldest) && current) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private static String encodeHeaders(String[] headers) {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < headers.length; i += 2) {
+            encoded.append(headers[i]).append(": ").append(headers[i + 1]).append('\n');
+        }
+        return encoded.toString();
+    }
+
+    private static String[] decodeHeaders(String encoded) {
+        List<String> headers = new ArrayList<>();
+        if (encoded != null) {
+            for (String line : encoded.split("\n")) {
+                int colon = line.indexOf(": ");
+                if (colon > 0) {
+                    headers.add(line.substring(0, colon));
+                    headers.add(line.substring(colon + 2));
+                }
+            }
+        }
+        return headers.toArray(String[]::new);
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final byte[] fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Response> response = new CompletableFuture<>();
+
+        Entry(String key, byte[] fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Row(byte[] fingerprint, Integer status, String contentType, String headers, byte[] body,
+                       Instant createdAt) {
+    }
+}
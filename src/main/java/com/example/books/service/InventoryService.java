@@ -0,0 +1,25 @@
+package com.example.books.service;
+
+/**
+ * Reserves and releases book stock. The implementation is picked by
+ * {@code books.inventory.write-behind.enabled}: {@link DirectInventoryService} by default,
+ * {@link WriteBehindInventoryService} when enabled.
+ */
+public interface InventoryService {
+
+    enum Result {
+        OK, INSUFFICIENT_STOCK, NOT_FOUND
+    }
+
+    Result reserve(Long bookId, int quantity);
+
+    Result release(Long bookId, int quantity);
+
+    /**
+     * Called after stock was written through another path (PUT, batch update, delete), so any
+     * state derived from the previously persisted quantity is dropped.
+     */
+    void invalidate(Long bookId);
+
+    void invalidateAll();
+}
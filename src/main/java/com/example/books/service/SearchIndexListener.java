@@ -0,0 +1,61 @@
+package com.example.books.service;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Entity listener on {@link Book} and {@link Author} that mirrors committed changes into the
+ * {@link BookSearchIndex}. Hibernate creates it through Spring's bean container, so it is
+ * autowired; the index is looked up lazily because JPA test slices run without it.
+ */
+public class SearchIndexListener {
+
+    @Autowired
+    private ObjectProvider<BookSearchIndex> searchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Book book) {
+            Long authorId = book.getAuthor() != null ? book.getAuthor().getId() : null;
+            afterCommit(index -> index.putBook(book.getId(), book.getTitle(), authorId));
+        } else if (entity instanceof Author author) {
+            afterCommit(index -> index.putAuthor(author.getId(), author.getName()));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Book book) {
+            afterCommit(index -> index.removeBook(book.getId()));
+        } else if (entity instanceof Author author) {
+            afterCommit(index -> index.removeAuthor(author.getId()));
+        }
+    }
+
+    private void afterCommit(Consumer<BookSearchIndex> change) {
+        BookSearchIndex index = searchIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.accept(index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.accept(index);
+            }
+        });
+    }
+}
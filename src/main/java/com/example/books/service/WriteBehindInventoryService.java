@@ -0,0 +1,350 @@
+package com.example.books.service;
+
+import com.example.books.config.CacheConfig;
+import com.example.books.model.CatalogChange;
+import com.example.books.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Absorbs reservations on hot titles in memory and writes the aggregated delta back to the
+ * {@code books} row in one UPDATE per flush, instead of one row-locking UPDATE per request.
+ * <p>
+ * The first reservation of a book loads its persisted stock into a {@link Counter} whose units
+ * are spread over several atomic stripes, so concurrent reservations rarely touch the same
+ * memory. Reservations can never take more than that persisted stock (plus what was released
+ * since). Deltas are flushed every {@code books.inventory.write-behind.flush-interval-ms}, as
+ * soon as {@code books.inventory.write-behind.flush-threshold} units are pending, on
+ * {@link #invalidate(Long)} and on shutdown. Counters idle for {@value #IDLE_FLUSHES} flushes
+ * are dropped. A delta that fails to flush stays pending in its counter, which is kept until a
+ * later flush succeeds.
+ * <p>
+ * Crash semantics: reservations are acknowledged before they are durable. If the process dies
+ * without a graceful shutdown, deltas not yet flushed are lost and the row keeps the stock they
+ * took, i.e. at most one flush interval (or threshold) worth of reservations can be sold again.
+ * The bound is per process, so this mode is only safe with a single instance writing stock, and
+ * reads of {@code quantityAvailable} lag by up to one flush.
+ */
+@Service
+@ConditionalOnProperty(name = "books.inventory.write-behind.enabled", havingValue = "true")
+public class WriteBehindInventoryService implements InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindInventoryService.class);
+
+    static final int IDLE_FLUSHES = 50;
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /** Counters dropped so far; a stock read from before a drop may miss that counter's flush. */
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Value("${books.inventory.write-behind.flush-threshold:100}")
+    private long flushThreshold;
+
+    @Override
+    public Result reserve(Long bookId, int quantity) {
+        while (true) {
+            Counter counter = counterFor(bookId);
+            if (counter == null) {
+                return Result.NOT_FOUND;
+            }
+            Lock lock = counter.guard.readLock();
+            lock.lock();
+            try {
+                if (counter.retired) {
+                    awaitRetirement(counter);
+                    continue;
+                }
+                if (!counter.take(quantity)) {
+                    return Result.INSUFFICIENT_STOCK;
+                }
+                counter.taken.add(quantity);
+            } finally {
+                lock.unlock();
+            }
+            flushIfOverThreshold(counter);
+            return Result.OK;
+        }
+    }
+
+    @Override
+    public Result release(Long bookId, int quantity) {
+        while (true) {
+            Counter counter = counterFor(bookId);
+            if (counter == null) {
+                return Result.NOT_FOUND;
+            }
+            Lock lock = counter.guard.readLock();
+            lock.lock();
+            try {
+                if (counter.retired) {
+                    awaitRetirement(counter);
+                    continue;
+                }
+                counter.put(quantity);
+                counter.returned.add(quantity);
+            } finally {
+                lock.unlock();
+            }
+            flushIfOverThreshold(counter);
+            return Result.OK;
+        }
+    }
+
+    /**
+     * Flushes and drops the counter of a book. Reservations arriving meanwhile wait for the flush
+     * and then reload the stock it left behind. If the flush fails, the counter stays in service
+     * until {@link #flushAll()} manages to flush and drop it.
+     */
+    @Override
+    public void invalidate(Long bookId) {
+        Counter counter = counters.get(bookId);
+        if (counter == null) {
+            return;
+        }
+        if (retire(counter)) {
+            drop(counter);
+        } else {
+            counter.invalidated = true;
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        counters.keySet().forEach(this::invalidate);
+    }
+
+    @Scheduled(fixedDelayString = "${books.inventory.write-behind.flush-interval-ms:200}")
+    public void flushAll() {
+        counters.forEach((id, counter) -> {
+            counter.flushLock.lock();
+            try {
+                flush(counter);
+            } finally {
+                counter.flushLock.unlock();
+            }
+            if ((counter.idleFlushes >= IDLE_FLUSHES || counter.invalidated) && retire(counter)) {
+                drop(counter);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        invalidateAll();
+    }
+
+    /**
+     * The stock is read outside the map, so the query holds up no other book. A counter dropped
+     * while it runs may have flushed after the read, and then the read is repeated.
+     */
+    private Counter counterFor(Long bookId) {
+        while (true) {
+            Counter counter = counters.get(bookId);
+            if (counter != null) {
+                return counter;
+            }
+            long seen = dropped.get();
+            Optional<Integer> stock = bookRepository.findStockById(bookId);
+            if (stock.isEmpty()) {
+                return null;
+            }
+            counter = counters.computeIfAbsent(bookId, id -> dropped.get() == seen ? new Counter(id, stock.get()) : null);
+            if (counter != null) {
+                return counter;
+            }
+        }
+    }
+
+    /**
+     * Stops reservations on the counter and flushes what it holds.
+     *
+     * @return {@code false} if the flush failed, in which case the counter is back in service
+     */
+    private boolean retire(Counter counter) {
+        setRetired(counter, true);
+        counter.flushLock.lock();
+        try {
+            if (flush(counter)) {
+                return true;
+            }
+        } finally {
+            counter.flushLock.unlock();
+        }
+        setRetired(counter, false);
+        return false;
+    }
+
+    private static void setRetired(Counter counter, boolean retired) {
+        Lock lock = counter.guard.writeLock();
+        lock.lock();
+        try {
+            counter.retired = retired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drop(Counter counter) {
+        counters.computeIfPresent(counter.bookId, (id, current) -> {
+            if (current != counter) {
+                return current;
+            }
+            dropped.incrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the flush of a counter being retired, which holds its flush lock.
+     */
+    private static void awaitRetirement(Counter counter) {
+        counter.flushLock.lock();
+        counter.flushLock.unlock();
+    }
+
+    private void flushIfOverThreshold(Counter counter) {
+        if (counter.pending() >= flushThreshold && counter.flushLock.tryLock()) {
+            try {
+                flush(counter);
+            } finally {
+                counter.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the net delta since the last successful flush. {@code taken} and {@code returned}
+     * only grow, so units added while they are being summed are simply picked up next time.
+     * Must be called with the counter's flush lock held.
+     *
+     * @return {@code false} if the delta could not be written and is still pending
+     */
+    private boolean flush(Counter counter) {
+        long taken = counter.taken.sum();
+        long returned = counter.returned.sum();
+        long delta = (returned - counter.flushedReturned) - (taken - counter.flushedTaken);
+        if (taken == counter.flushedTaken && returned == counter.flushedReturned) {
+            counter.idleFlushes++;
+            return true;
+        }
+        counter.idleFlushes = 0;
+        if (delta != 0) {
+            try {
+                if (changeLog.recordUpdate(CatalogChange.Type.BOOK, counter.bookId,
+                        () -> bookRepository.adjustStock(counter.bookId, Math.toIntExact(delta))) == 0) {
+                    log.warn("Book {} disappeared with {} unflushed units of stock", counter.bookId, delta);
+                } else {
+                    catalogStats.adjustStock(counter.bookId, Math.toIntExact(delta));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush {} units of stock for book {}, will retry", delta, counter.bookId, e);
+                return false;
+            }
+            Cache cache = cacheManager.getCache(CacheConfig.BOOKS);
+            if (cache != null) {
+                cache.evict(counter.bookId);
+            }
+        }
+        counter.flushedTaken = taken;
+        counter.flushedReturned = returned;
+        return true;
+    }
+
+    /**
+     * Available units of one book, spread over {@link #STRIPES} atomics. {@link #take(int)} tries
+     * the stripes with a CAS and only falls back to a locked rebalance when no single stripe holds
+     * enough units.
+     */
+    static final class Counter {
+
+        final Long bookId;
+        final AtomicLong[] stripes = new AtomicLong[STRIPES];
+        final LongAdder taken = new LongAdder();
+        final LongAdder returned = new LongAdder();
+        final ReentrantReadWriteLock guard = new ReentrantReadWriteLock();
+        final ReentrantLock flushLock = new ReentrantLock();
+        volatile long flushedTaken;
+        volatile long flushedReturned;
+        volatile int idleFlushes;
+        volatile boolean invalidated;
+        boolean retired;
+
+        Counter(Long bookId, long stock) {
+            this.bookId = bookId;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new AtomicLong();
+            }
+            spread(stock);
+        }
+
+        boolean take(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicLong stripe = stripes[(start + i) & (STRIPES - 1)];
+                for (long units = stripe.get(); units >= quantity; units = stripe.get()) {
+                    if (stripe.compareAndSet(units, units - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            return rebalanceAndTake(quantity);
+        }
+
+        void put(int quantity) {
+            stripes[ThreadLocalRandom.current().nextInt(STRIPES)].addAndGet(quantity);
+        }
+
+        long pending() {
+            return taken.sum() - flushedTaken + returned.sum() - flushedReturned;
+        }
+
+        private synchronized boolean rebalanceAndTake(int quantity) {
+            long units = 0;
+            for (AtomicLong stripe : stripes) {
+                units += stripe.getAndSet(0);
+            }
+            boolean enough = units >= quantity;
+            spread(enough ? units - quantity : units);
+            return enough;
+        }
+
+        private void spread(long units) {
+            long share = units / STRIPES;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i].addAndGet(i == 0 ? share + units % STRIPES : share);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.books;
+
+import com.example.books.service.AdmissionControl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@SpringBootTest(properties = {
+        "books.admission.enabled=true",
+        "books.admission.rate=1",
+        "books.admission.burst=20",
+        "books.admission.max-concurrency=16",
+        "books.admission.list-weight=8"
+})
+@AutoConfigureMockMvc
+public class AdmissionControlTest {
+
+    private static final String REQUESTS = "books.admission.requests";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionControl admission;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void testClientOverItsRateIsRefused() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(200, get("/books/stats", "10.0.0.1").getStatus());
+        }
+        MockHttpServletResponse refused = null;
+        for (int i = 0; i < 10 && refused == null; i++) {
+            MockHttpServletResponse response = get("/books/stats", "10.0.0.1");
+            if (response.getStatus() != 200) {
+                refused = response;
+            }
+        }
+
+        Assertions.assertNotNull(refused, "a client at 1 request a second is refused within 10 more");
+        Assertions.assertEquals(429, refused.getStatus());
+        Assertions.assertTrue(Integer.parseInt(refused.getHeader("Retry-After")) >= 1);
+        Assertions.assertEquals(200, get("/books/stats", "10.0.0.2").getStatus(), "other clients are not limited");
+    }
+
+    @Test
+    public void testListsCostMore() throws Exception {
+        get("/books", "10.0.1.1");
+
+        Assertions.assertEquals(200, get("/books", "10.0.1.2").getStatus());
+        Assertions.assertEquals(200, get("/books", "10.0.1.2").getStatus());
+        Assertions.assertEquals(429, get("/books", "10.0.1.2").getStatus(), "a burst of 20 takes two lists of 8");
+        Assertions.assertEquals(200, get("/books/stats", "10.0.1.2").getStatus());
+    }
+
+    @Test
+    public void testBusyServerRefusesListsBeforeSingleReads() throws Exception {
+        double overloaded = count("overloaded", "list");
+        Assertions.assertEquals(AdmissionControl.Outcome.ADMITTED, admission.admit("holder", 10).outcome());
+        try {
+            MockHttpServletResponse refused = get("/books", "10.0.2.1");
+            Assertions.assertEquals(503, refused.getStatus());
+            Assertions.assertEquals("1", refused.getHeader("Retry-After"));
+            Assertions.assertEquals(200, get("/books/stats", "10.0.2.1").getStatus());
+        } finally {
+            admission.release(10);
+        }
+        Assertions.assertEquals(200, get("/books", "10.0.2.1").getStatus(), "the refused list was not charged");
+        Assertions.assertEquals(overloaded + 1, count("overloaded", "list"));
+        Assertions.assertEquals(0, admission.inFlight());
+    }
+
+    /**
+     * 16 threads for 4 clients, listing books as fast as they can: every request is answered
+     * at once, admitted or not, and nothing is left in flight afterwards.
+     */
+    @Test
+    public void testLoadIsRefusedFastAndReleased() throws Exception {
+        int threads = 16;
+        int requestsPerThread = 20;
+        double before = total();
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String client = "10.0.3." + (t % 4);
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    int status = get("/books", client).getStatus();
+                    statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int requests = threads * requestsPerThread;
+
+        Assertions.assertTrue(Set.of(200, 429, 503).containsAll(statuses.keySet()), statuses.toString());
+        Assertions.assertTrue(statuses.containsKey(200) && statuses.containsKey(429), statuses.toString());
+        // each client has 20 tokens and one more a second, and a list costs 8
+        int admitted = statuses.get(200).get();
+        Assertions.assertTrue(admitted <= 4 * (20 + seconds + 1) / 8, "lists admitted: " + admitted);
+        Assertions.assertEquals(before + requests, total());
+        Assertions.assertEquals(0, admission.inFlight());
+    }
+
+    /**
+     * 8 threads deciding for 2000 clients, more than the 1000 that get a bucket of their own, and
+     * for one client they all share: the limits hold under contention and a decision is cheap.
+     */
+    @Test
+    @Tag("load")
+    public void testDecisionsAreFastAndExact() throws Exception {
+        AdmissionControl control = new AdmissionControl(1000, 100, 32, 1000);
+        int threads = 8;
+        int decisionsPerThread = 200_000;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        LongAdder sharedAdmitted = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < decisionsPerThread; i++) {
+                    boolean shared = i % 2 == 0;
+                    int cost = i % 5 == 0 ? 8 : 1;
+                    String client = shared ? "everyone" : "client-" + (thread * decisionsPerThread + i) % 2000;
+                    if (control.admit(client, cost).outcome() != AdmissionControl.Outcome.ADMITTED) {
+                        continue;
+                    }
+                    if (shared) {
+                        sharedAdmitted.add(cost);
+                    }
+                    int now = running.addAndGet(cost);
+                    mostRunning.accumulateAndGet(now, Math::max);
+                    running.addAndGet(-cost);
+                    control.release(cost);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int decisions = threads * decisionsPerThread;
+
+        Assertions.assertTrue(mostRunning.get() <= 32, "cost in flight: " + mostRunning.get());
+        Assertions.assertEquals(0, control.inFlight());
+        Assertions.assertTrue(control.clients() <= 1000, "clients kept: " + control.clients());
+        // a refused request may be refunded after a later one was measured against its tokens
+        Assertions.assertTrue(sharedAdmitted.sum() <= 100 + 1000 * seconds + 8 * threads,
+                "tokens spent by one client: " + sharedAdmitted.sum() + " in " + seconds + " s");
+        Assertions.assertTrue(decisions / seconds > 200_000, "decisions per second: " + decisions / seconds);
+    }
+
+    private MockHttpServletResponse get(String uri, String client) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get(uri).with(request -> {
+            request.setRemoteAddr(client);
+            return request;
+        })).andReturn().getResponse();
+    }
+
+    private double count(String outcome, String endpoint) {
+        return registry.get(REQUESTS).tag("outcome", outcome).tag("endpoint", endpoint).counter().count();
+    }
+
+    private double total() {
+        return registry.get(REQUESTS).counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+}
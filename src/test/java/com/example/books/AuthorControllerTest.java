@@ -1,16 +1,25 @@
 package com.example.books;
 
 import com.example.books.controller.AuthorController;
+import com.example.books.controller.ListResponseCache;
 import com.example.books.model.Author;
 import com.example.books.repository.AuthorRepository;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.CatalogStatsService;
+import com.example.books.service.BookSearchIndex;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -22,6 +31,9 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,13 +46,28 @@ public class AuthorControllerTest {
     @MockBean
     private AuthorRepository authorRepository;
 
+    @MockBean
+    private BatchService batchService;
+
+    @MockBean
+    private CatalogStatsService catalogStats;
+
+    @MockBean
+    private CatalogChangeLog changeLog;
+
+    @MockBean
+    private ListResponseCache listCache;
+
+    @MockBean
+    private BookSearchIndex bookSearchIndex;
+
     @Test
     public void testGetAllAuthors() throws Exception {
         Author author1 = new Author("John Doe");
         Author author2 = new Author("Jane Smith");
         List<Author> authors = Arrays.asList(author1, author2);
 
-        when(authorRepository.findAll()).thenReturn(authors);
+        when(authorRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(authors);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -109,6 +136,43 @@ public class AuthorControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
 
+    @Test
+    public void testUpsertAuthorByName() throws Exception {
+        Author author = new Author(7L, "Jane Smith");
+
+        when(authorRepository.nextId()).thenReturn(7L);
+        when(changeLog.recordUpdate(any(), eq(7L), any())).thenReturn(1);
+        when(authorRepository.findIdByName(eq("jane smith"))).thenReturn(null, 7L);
+        when(authorRepository.findById(eq(7L))).thenReturn(Optional.of(author));
+        when(authorRepository.findByName(eq("jane smith"))).thenReturn(Optional.of(author));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/by-name/jane smith"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string("Location", "/authors/7"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Jane Smith"));
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/by-name/jane smith"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(7));
+        verify(authorRepository, times(1)).nextId();
+    }
+
+    @Test
+    public void testOnlyTakenNamesAreConflicts() throws Exception {
+        Author author = new Author(1L, "John Doe");
+        when(authorRepository.save(any(Author.class))).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_AUTHORS_NAME_KEY_INDEX_4 ON PUBLIC.AUTHORS(NAME_KEY)\""));
+        when(authorRepository.findById(eq(1L))).thenReturn(Optional.of(author));
+        doThrow(new DataIntegrityViolationException("Referential integrity constraint violation: \"FK_BOOKS_AUTHOR\""))
+                .when(authorRepository).delete(author);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/authors")
+                        .content(asJsonString(new Author("John Doe")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        Assertions.assertThrows(ServletException.class,
+                () -> mockMvc.perform(MockMvcRequestBuilders.delete("/authors/1")));
+    }
+
     private String asJsonString(Object obj) throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(obj);
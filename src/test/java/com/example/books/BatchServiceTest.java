@@ -0,0 +1,153 @@
+package com.example.books;
+
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.BatchItemResult.Status;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.BatchService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BatchServiceTest {
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Author author;
+    private Genre genre;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository.deleteAllInBatch();
+        author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+    }
+
+    @Test
+    public void testCreateUsesJdbcBatches() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            books.add(new Book("Book " + i, author, genre, 9.99, 1));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BatchItemResult> results = batchService.create(books, bookRepository, Book::getId, Book::setId);
+
+        Assertions.assertEquals(1200, results.size());
+        Assertions.assertTrue(results.stream().allMatch(r -> r.getStatus() == Status.CREATED && r.getId() != null));
+        Assertions.assertEquals(1200, bookRepository.count());
+        Assertions.assertTrue(statistics.getPrepareStatementCount() < 120,
+                "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    public void testFailingItemIsIsolated() {
+        List<Book> books = Arrays.asList(
+                new Book("Good 1", author, genre, 9.99, 1),
+                new Book("Bad", new Author(Long.MAX_VALUE, "Missing"), genre, 9.99, 1),
+                new Book("Good 2", author, genre, 9.99, 1)
+        );
+
+        List<BatchItemResult> results = batchService.create(books, bookRepository, Book::getId, Book::setId);
+
+        Assertions.assertEquals(Status.CREATED, results.get(0).getStatus());
+        Assertions.assertEquals(Status.FAILED, results.get(1).getStatus());
+        Assertions.assertEquals(1, results.get(1).getIndex());
+        Assertions.assertEquals(Status.CREATED, results.get(2).getStatus());
+        Assertions.assertEquals(2, bookRepository.count());
+    }
+
+    @Test
+    public void testUpdateAndDeleteReportPerItem() {
+        Book book = bookRepository.save(new Book("Old Title", author, genre, 9.99, 1));
+        Book update = new Book(book.getId(), "New Title", author, genre, 19.99, 3);
+        Book missing = new Book(Long.MAX_VALUE, "Missing", author, genre, 1.0, 1);
+
+        List<BatchItemResult> updated = batchService.update(Arrays.asList(update, missing), bookRepository,
+                Book::getId, (target, source) -> target.setTitle(source.getTitle()));
+
+        Assertions.assertEquals(Status.UPDATED, updated.get(0).getStatus());
+        Assertions.assertEquals(Status.NOT_FOUND, updated.get(1).getStatus());
+        Assertions.assertEquals("New Title", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+
+        List<BatchItemResult> deleted = batchService.delete(Arrays.asList(book.getId(), Long.MAX_VALUE),
+                bookRepository, Book::getId);
+
+        Assertions.assertEquals(Status.DELETED, deleted.get(0).getStatus());
+        Assertions.assertEquals(Status.NOT_FOUND, deleted.get(1).getStatus());
+        Assertions.assertFalse(bookRepository.existsById(book.getId()));
+    }
+
+    @Test
+    public void testNullElementsAreRejectedPerItem() {
+        Book created = new Book("Created Next To Null", author, genre, 9.99, 1);
+
+        List<BatchItemResult> results = batchService.create(Arrays.asList(null, created), bookRepository,
+                Book::getId, Book::setId);
+
+        Assertions.assertEquals(Status.FAILED, results.get(0).getStatus());
+        Assertions.assertEquals("item is required", results.get(0).getError());
+        Assertions.assertEquals(Status.CREATED, results.get(1).getStatus());
+        Assertions.assertEquals(1, results.get(1).getIndex());
+
+        Book update = new Book(results.get(1).getId(), "Updated Next To Null", author, genre, 9.99, 1);
+        results = batchService.update(Arrays.asList(update, null), bookRepository,
+                Book::getId, (target, source) -> target.setTitle(source.getTitle()));
+
+        Assertions.assertEquals(Status.UPDATED, results.get(0).getStatus());
+        Assertions.assertEquals(Status.FAILED, results.get(1).getStatus());
+        Assertions.assertEquals(1, results.get(1).getIndex());
+        Assertions.assertEquals("item is required", results.get(1).getError());
+        Assertions.assertEquals("Updated Next To Null",
+                bookRepository.findById(update.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    public void testUpdateWithStaleVersionIsConflict() {
+        Book book = bookRepository.save(new Book("Versioned Title", author, genre, 9.99, 1));
+        Book stale = new Book(book.getId(), "Stale Title", author, genre, 9.99, 1);
+        stale.setVersion(book.getVersion() - 1);
+        Book current = new Book(book.getId(), "Current Title", author, genre, 9.99, 1);
+        current.setVersion(book.getVersion());
+
+        List<BatchItemResult> results = batchService.update(List.of(stale), bookRepository,
+                Book::getId, Book::getVersion, (target, source) -> target.setTitle(source.getTitle()));
+
+        Assertions.assertEquals(Status.CONFLICT, results.get(0).getStatus());
+        Assertions.assertEquals("Versioned Title", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+
+        results = batchService.update(List.of(current), bookRepository,
+                Book::getId, Book::getVersion, (target, source) -> target.setTitle(source.getTitle()));
+
+        Assertions.assertEquals(Status.UPDATED, results.get(0).getStatus());
+        Assertions.assertEquals("Current Title", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+    }
+}
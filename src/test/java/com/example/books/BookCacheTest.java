@@ -0,0 +1,108 @@
+package com.example.books;
+
+import com.example.books.config.CacheConfig;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cacheManager.getCache(CacheConfig.BOOKS).clear();
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        book = bookRepository.save(new Book("Fantastic Book", author, genre, 10.99, 5));
+    }
+
+    @Test
+    public void testRepeatedReadSkipsDatabase() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Fantastic Book"));
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testUpdateEvictsBook() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + book.getId())
+                        .content("{\"title\":\"Amazing Book\",\"author\":{\"id\":" + book.getAuthor().getId()
+                                + "},\"genre\":{\"id\":" + book.getGenre().getId() + "},\"price\":12.99}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Amazing Book"));
+    }
+
+    @Test
+    public void testAuthorRenameEvictsBooks() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/" + book.getAuthor().getId())
+                        .content("{\"name\":\"Jane Smith\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value("Jane Smith"));
+    }
+
+    @Test
+    public void testDeleteEvictsBook() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+}
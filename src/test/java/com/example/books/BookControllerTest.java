@@ -1,29 +1,49 @@
 package com.example.books;
 
 import com.example.books.controller.BookController;
+import com.example.books.controller.ListResponseCache;
+import com.example.books.dto.BatchItemResult;
+import com.example.books.dto.BookView;
 import com.example.books.model.Author;
 import com.example.books.model.Book;
 import com.example.books.model.Genre;
 import com.example.books.repository.BookRepository;
+import com.example.books.repository.BookSort;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.CatalogStatsService;
+import com.example.books.service.BookSearchIndex;
+import com.example.books.service.CatalogImportService;
+import com.example.books.service.BookExportService;
+import com.example.books.service.InventoryService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +56,33 @@ public class BookControllerTest {
     @MockBean
     private BookRepository bookRepository;
 
+    @MockBean
+    private BatchService batchService;
+
+    @MockBean
+    private CatalogStatsService catalogStats;
+
+    @MockBean
+    private CatalogChangeLog changeLog;
+
+    @MockBean
+    private ListResponseCache listCache;
+
+    @MockBean
+    private BookSearchIndex bookSearchIndex;
+
+    @MockBean
+    private BookExportService bookExportService;
+
+    @MockBean
+    private InventoryService inventoryService;
+
+    @MockBean
+    private CatalogImportService catalogImportService;
+
+    @MockBean
+    private CacheManager cacheManager;
+
     @Test
     public void testGetAllBooks() throws Exception {
         Genre genre = new Genre(1L, "Fiction");
@@ -45,20 +92,97 @@ public class BookControllerTest {
                 new Book(2L, "Book 2", author, genre, 12.99)
         );
 
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findViewsAfter(eq(0L), any(Limit.class))).thenReturn(asViews(books));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/books"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(books.size()));
     }
 
+    @Test
+    public void testGetAllBooks_NextPage() throws Exception {
+        Genre genre = new Genre(1L, "Fiction");
+        Author author = new Author(1L, "John Doe");
+        List<Book> books = Arrays.asList(
+                new Book(11L, "Book 11", author, genre, 10.99),
+                new Book(12L, "Book 12", author, genre, 12.99),
+                new Book(13L, "Book 13", author, genre, 14.99)
+        );
+
+        when(bookRepository.findViewsAfter(eq(10L), eq(Limit.of(3)))).thenReturn(asViews(books));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books").param("after", "10").param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value(12))
+                .andExpect(MockMvcResultMatchers.header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        String cursor = result.getResponse().getHeader("X-Next-Cursor");
+        when(bookRepository.findViewsAfter(eq(12L), eq(Limit.of(3)))).thenReturn(List.of(asView(books.get(2))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("cursor", cursor).param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(1))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testGetAllBooks_InvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("cursor", "not-a-cursor"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testGetAllBooks_Filtered() throws Exception {
+        Genre genre = new Genre(1L, "Fiction");
+        Author author = new Author(1L, "John Doe");
+        List<Book> books = Arrays.asList(
+                new Book(2L, "Book 2", author, genre, 12.99),
+                new Book(1L, "Book 1", author, genre, 10.99)
+        );
+
+        when(bookRepository.findViews(any(), any(BookSort.class), eq(Limit.of(101)))).thenReturn(asViews(books));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("genreId", "1").param("sort", "price,desc"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    public void testGetAllBooks_InvalidSort() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("sort", "price,sideways"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testExportBooks() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookExportService).export(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andExpect(MockMvcResultMatchers.content().string("{\"id\":1}\n{\"id\":2}\n"));
+        Assertions.assertEquals(Duration.ofHours(1).toMillis(), result.getRequest().getAsyncContext().getTimeout(),
+                "the export is not held to the default async timeout");
+    }
+
     @Test
     public void testGetBookById() throws Exception {
         Genre genre = new Genre(1L, "Fiction");
         Author author = new Author(1L, "John Doe");
         Book book = new Book(1L, "Fantastic Book", author, genre, 10.99);
 
-        when(bookRepository.findById(eq(1L))).thenReturn(Optional.of(book));
+        when(bookRepository.findViewById(eq(1L))).thenReturn(Optional.of(asView(book)));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/books/1"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -71,9 +195,28 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(book.getPrice()));
     }
 
+    @Test
+    public void testGetBookById_NotModified() throws Exception {
+        Genre genre = new Genre(1L, "Fiction");
+        Author author = new Author(1L, "John Doe");
+        Book book = new Book(1L, "Fantastic Book", author, genre, 10.99);
+
+        when(bookRepository.findViewById(eq(1L))).thenReturn(Optional.of(asView(book)));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/1")
+                        .header("If-None-Match", result.getResponse().getHeader("ETag")))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
     @Test
     public void testGetBookById_NotFound() throws Exception {
-        when(bookRepository.findById(eq(1L))).thenReturn(Optional.empty());
+        when(bookRepository.findViewById(eq(1L))).thenReturn(Optional.empty());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/books/1"))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
@@ -124,6 +267,72 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(updatedBook.getPrice()));
     }
 
+    @Test
+    public void testUpdateBook_StaleVersion() throws Exception {
+        Genre genre = new Genre(1L, "Fiction");
+        Author author = new Author(1L, "John Doe");
+        Book existingBook = new Book(1L, "Fantastic Book", author, genre, 10.99);
+        existingBook.setVersion(3L);
+        Book updatedBook = new Book(1L, "Amazing Book", author, genre, 12.99);
+        updatedBook.setVersion(2L);
+
+        when(bookRepository.findById(eq(1L))).thenReturn(Optional.of(existingBook));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/1")
+                        .content(asJsonString(updatedBook))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void testReserveBook() throws Exception {
+        when(inventoryService.reserve(eq(1L), eq(2))).thenReturn(InventoryService.Result.OK);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/1/reserve").param("quantity", "2"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+    }
+
+    @Test
+    public void testReserveBook_InsufficientStock() throws Exception {
+        when(inventoryService.reserve(eq(1L), eq(1))).thenReturn(InventoryService.Result.INSUFFICIENT_STOCK);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/1/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void testReserveBook_NotFound() throws Exception {
+        when(inventoryService.reserve(eq(1L), eq(1))).thenReturn(InventoryService.Result.NOT_FOUND);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/1/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testCreateBooksBatch() throws Exception {
+        Genre genre = new Genre(1L, "Fiction");
+        Author author = new Author(1L, "John Doe");
+        List<Book> books = Arrays.asList(
+                new Book(null, "Book 1", author, genre, 10.99),
+                new Book(null, "Book 2", author, genre, 12.99)
+        );
+        List<BatchItemResult> results = Arrays.asList(
+                BatchItemResult.of(0, 1L, BatchItemResult.Status.CREATED),
+                BatchItemResult.failed(1, null, "constraint violation")
+        );
+
+        when(batchService.create(anyList(), eq(bookRepository), any(), any())).thenReturn(results);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/batch")
+                        .content(asJsonString(books))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("FAILED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1));
+    }
+
     @Test
     public void testDeleteBook() throws Exception {
         Genre genre = new Genre(1L, "Fiction");
@@ -136,6 +345,16 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
 
+    private List<BookView> asViews(List<Book> books) {
+        return books.stream().map(this::asView).toList();
+    }
+
+    private BookView asView(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getAuthor().getId(), book.getAuthor().getName(),
+                book.getGenre().getId(), book.getGenre().getName(), book.getPrice(), book.getQuantityAvailable(),
+                book.getVersion());
+    }
+
     private String asJsonString(Object obj) throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(obj);
@@ -0,0 +1,53 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.service.BookExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+@DataJpaTest
+@Import({BookExportService.class, JacksonAutoConfiguration.class})
+public class BookExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testExportWritesOneLinePerBook() throws Exception {
+        Author author = entityManager.persist(new Author("John Doe"));
+        Genre genre = entityManager.persist(new Genre("Fiction"));
+        int count = 2500;
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(new Book("Book " + i, author, genre, 10.99, i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookExportService.export(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(count, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals("John Doe", first.path("author").path("name").asText());
+        Assertions.assertEquals("Fiction", first.path("genre").path("name").asText());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    private Author austen;
+    private Author bronte;
+    private Genre romance;
+    private Genre gothic;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository.deleteAll();
+        austen = authorRepository.save(new Author(UniqueNames.of("Jane Austen")));
+        bronte = authorRepository.save(new Author(UniqueNames.of("Charlotte Bronte")));
+        romance = genreRepository.save(new Genre(UniqueNames.of("Romance")));
+        gothic = genreRepository.save(new Genre(UniqueNames.of("Gothic")));
+        bookRepository.save(new Book("Pride and Prejudice", austen, romance, 9.5, 3));
+        bookRepository.save(new Book("Emma", austen, romance, 7.0, 0));
+        bookRepository.save(new Book("Northanger Abbey", austen, gothic, 7.0, 2));
+        bookRepository.save(new Book("Jane Eyre", bronte, gothic, 12.0, 1));
+        bookRepository.save(new Book(null, bronte, romance, 5.0, 4));
+    }
+
+    @Test
+    public void testFiltersCombine() throws Exception {
+        Assertions.assertEquals(List.of("Pride and Prejudice", "Emma", "Northanger Abbey"),
+                titles(get().param("authorId", "" + austen.getId())));
+        Assertions.assertEquals(List.of("Pride and Prejudice"),
+                titles(get().param("authorId", "" + austen.getId()).param("genreId", "" + romance.getId())
+                        .param("inStock", "true")));
+        Assertions.assertEquals(List.of("Emma", "Northanger Abbey", "Pride and Prejudice"),
+                titles(get().param("minPrice", "6").param("maxPrice", "10").param("sort", "title")));
+    }
+
+    @Test
+    public void testSortsByPriceWithTiesAcrossPages() throws Exception {
+        List<String> ascending = pagedTitles("price", 2);
+        List<String> descending = pagedTitles("price,desc", 2);
+
+        Assertions.assertEquals(List.of("null", "Emma", "Northanger Abbey", "Pride and Prejudice", "Jane Eyre"), ascending);
+        Assertions.assertEquals(List.of("Jane Eyre", "Pride and Prejudice", "Northanger Abbey", "Emma", "null"), descending);
+    }
+
+    @Test
+    public void testSortsByTitleWithNullTitleAcrossPages() throws Exception {
+        Assertions.assertEquals(List.of("null", "Emma", "Jane Eyre", "Northanger Abbey", "Pride and Prejudice"),
+                pagedTitles("title", 1));
+        Assertions.assertEquals(List.of("Pride and Prejudice", "Northanger Abbey", "Jane Eyre", "Emma", "null"),
+                pagedTitles("title,desc", 2));
+    }
+
+    @Test
+    public void testRejectsInvalidSortAndMismatchedCursor() throws Exception {
+        mockMvc.perform(get().param("sort", "pages"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        String next = mockMvc.perform(get().param("sort", "price").param("limit", "1"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        Assertions.assertNotNull(next);
+        mockMvc.perform(get().param("sort", "title").param("cursor", next))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testRejectsTruncatedOrNonFinitePriceCursor() throws Exception {
+        for (String payload : List.of("price:5", "price:5:NaN", "price:5:Infinity")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+            mockMvc.perform(get().param("sort", "price").param("cursor", cursor))
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+    }
+
+    private List<String> pagedTitles(String sort, int limit) throws Exception {
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get().param("sort", sort).param("limit", "" + limit);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+            for (JsonNode book : objectMapper.readTree(response.getContentAsString())) {
+                titles.add(book.get("title").asText());
+            }
+            cursor = response.getHeader("X-Next-Cursor");
+        } while (cursor != null);
+        return titles;
+    }
+
+    private List<String> titles(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> titles = new ArrayList<>();
+        for (JsonNode book : objectMapper.readTree(body)) {
+            titles.add(book.get("title").asText());
+        }
+        return titles;
+    }
+
+    private static MockHttpServletRequestBuilder get() {
+        return MockMvcRequestBuilders.get("/books");
+    }
+}
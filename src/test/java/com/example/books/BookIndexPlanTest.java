@@ -0,0 +1,89 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.Locale;
+
+/**
+ * Asks H2 for the plans of the SQL shapes the filtered listing and the name lookups generate and
+ * checks that each one is answered from the indexes declared on the entities rather than a table
+ * scan.
+ */
+@DataJpaTest
+public class BookIndexPlanTest {
+
+    private static final String SELECT = "select b.id, b.title, a.id, a.name, g.id, g.name, b.price, "
+            + "b.quantity_available, b.version from books b left join authors a on a.id = b.author_id "
+            + "left join genres g on g.id = b.genre_id ";
+
+    /** {@code analyze} commits, so every set-up needs names of its own. */
+    private static int setUps;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        int setUp = setUps++;
+        for (int a = 0; a < 20; a++) {
+            Author author = new Author("Author " + setUp + "-" + a);
+            Genre genre = new Genre("Genre " + setUp + "-" + a);
+            entityManager.persist(author);
+            entityManager.persist(genre);
+            for (int b = 0; b < 50; b++) {
+                entityManager.persist(new Book("Title " + a + "-" + b, author, genre, b * 1.5, b % 3));
+            }
+        }
+        entityManager.flush();
+        entityManager.createNativeQuery("analyze").executeUpdate();
+    }
+
+    @Test
+    public void testGenreFilterSortedByPriceUsesGenrePriceIndex() {
+        assertUsesIndex("IDX_BOOKS_GENRE_PRICE",
+                SELECT + "where b.genre_id = 1 and b.price >= 10 order by b.price, b.id");
+    }
+
+    @Test
+    public void testAuthorFilterWithPriceRangeUsesAuthorPriceIndex() {
+        assertUsesIndex("IDX_BOOKS_AUTHOR_PRICE",
+                SELECT + "where b.author_id = 1 and b.price between 3 and 30 order by b.price, b.id");
+    }
+
+    @Test
+    public void testGenreFilterWithTitleCursorUsesGenreTitleIndex() {
+        assertUsesIndex("IDX_BOOKS_GENRE_TITLE",
+                SELECT + "where b.genre_id = 1 and b.title > 'Title 0-4' order by b.title, b.id");
+    }
+
+    @Test
+    public void testPriceRangeUsesPriceIndex() {
+        assertUsesIndex("IDX_BOOKS_PRICE",
+                SELECT + "where b.price between 3 and 4.5 order by b.price, b.id");
+    }
+
+    @Test
+    public void testTitleCursorUsesTitleIndex() {
+        assertUsesIndex("IDX_BOOKS_TITLE",
+                SELECT + "where b.title > 'Title 7' order by b.title, b.id");
+    }
+
+    @Test
+    public void testNameLookupsUseNameKeyIndexes() {
+        assertUsesIndex("UK_AUTHORS_NAME_KEY", "select a.id from authors a where a.name_key = lower('AUTHOR 0-7')");
+        assertUsesIndex("UK_GENRES_NAME_KEY", "select g.id from genres g where g.name_key = lower('genre 0-7')");
+    }
+
+    private void assertUsesIndex(String index, String sql) {
+        String plan = entityManager.createNativeQuery("explain " + sql).getSingleResult().toString();
+        Assertions.assertTrue(plan.toUpperCase(Locale.ROOT).contains(index), plan);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class BookReadQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        bookRepository.deleteAllInBatch();
+        authorRepository.deleteAllInBatch();
+        genreRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testListStatementCountDoesNotGrowWithRows() throws Exception {
+        seedBooks(5);
+        long smallPage = countStatements("/books?limit=1000");
+
+        seedBooks(50);
+        long largePage = countStatements("/books?limit=1000");
+
+        Assertions.assertEquals(1, smallPage);
+        Assertions.assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    public void testGetByIdUsesSingleStatement() throws Exception {
+        seedBooks(1);
+        Long id = bookRepository.findAll().get(0).getId();
+
+        Assertions.assertEquals(1, countStatements("/books/" + id));
+    }
+
+    @Test
+    public void testPageIsLimited() throws Exception {
+        seedBooks(3);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2))
+                .andExpect(MockMvcResultMatchers.header().exists("X-Next-Cursor"));
+    }
+
+    private long countStatements(String uri) throws Exception {
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.get(uri))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedBooks(int count) {
+        for (int i = 0; i < count; i++) {
+            Author author = authorRepository.save(new Author(UniqueNames.of("Author")));
+            Genre genre = genreRepository.save(new Genre(UniqueNames.of("Genre")));
+            bookRepository.save(new Book("Book " + i, author, genre, 9.99, 1));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.books;
+
+import com.example.books.service.BookSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BookSearchIndexTest {
+
+    private final BookSearchIndex index = new BookSearchIndex();
+
+    @Test
+    public void testMatchesTitleAndAuthorTermsWithPrefixes() {
+        index.putAuthor(1L, "J. R. R. Tolkien");
+        index.putAuthor(2L, "Ursula K. Le Guin");
+        index.putBook(10L, "The Hobbit", 1L);
+        index.putBook(11L, "The Lord of the Rings", 1L);
+        index.putBook(12L, "A Wizard of Earthsea", 2L);
+
+        Assertions.assertEquals(List.of(10L), index.search("hobbit", 10));
+        Assertions.assertEquals(List.of(10L), index.search("tolk hob", 10));
+        Assertions.assertEquals(List.of(10L, 11L), index.search("TOLKIEN", 10));
+        Assertions.assertEquals(List.of(12L), index.search("earth guin", 10));
+        Assertions.assertEquals(List.of(), index.search("hobbit guin", 10));
+        Assertions.assertEquals(List.of(), index.search("  ", 10));
+    }
+
+    @Test
+    public void testRanksWholeWordsAndTitlesFirst() {
+        index.putAuthor(1L, "Rosemary Sutcliff");
+        index.putAuthor(2L, "Anne Rice");
+        index.putBook(1L, "Rose Madder", 2L);
+        index.putBook(2L, "The Name of the Rose", 2L);
+        index.putBook(3L, "Rosewater", 2L);
+        index.putBook(4L, "Warrior Scarlet", 1L);
+
+        List<Long> ranked = index.search("rose", 10);
+
+        // Whole title words (tied, so by id), then a title prefix, then an author prefix.
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), ranked);
+        Assertions.assertEquals(List.of(1L, 2L), index.search("rose", 2));
+    }
+
+    @Test
+    public void testFoldsCaseAndDiacritics() {
+        index.putAuthor(1L, "Gabriel García Márquez");
+        index.putBook(1L, "Cien años de soledad", 1L);
+
+        Assertions.assertEquals(List.of(1L), index.search("garcia anos", 10));
+        Assertions.assertEquals(List.of(1L), index.search("SOLEDAD, márquez!", 10));
+    }
+
+    @Test
+    public void testFollowsUpdatesAndRemovals() {
+        index.putAuthor(1L, "Richard Bachman");
+        index.putBook(1L, "Thinner", 1L);
+
+        index.putAuthor(1L, "Stephen King");
+        Assertions.assertEquals(List.of(), index.search("bachman", 10));
+        Assertions.assertEquals(List.of(1L), index.search("king", 10));
+
+        index.putBook(1L, "The Long Walk", 1L);
+        Assertions.assertEquals(List.of(), index.search("thinner", 10));
+        Assertions.assertEquals(List.of(1L), index.search("walk", 10));
+
+        index.removeBook(1L);
+        Assertions.assertEquals(List.of(), index.search("king", 10));
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testSingleLetterTermsMatchWholeWordsOnly() {
+        index.putBook(1L, "A Game of Thrones", null);
+        index.putBook(2L, "Atonement", null);
+
+        Assertions.assertEquals(List.of(1L), index.search("a", 10));
+    }
+
+    @Test
+    @Tag("load")
+    public void testQueryLatencyOnLargeCatalog() {
+        String[] words = {"shadow", "river", "night", "garden", "empire", "silent", "winter", "glass",
+                "harbor", "crown", "storm", "letters", "stone", "orchard", "machine", "daughter"};
+        int books = 200_000;
+        for (long author = 0; author < 5_000; author++) {
+            index.putAuthor(author, "Author" + author + " " + words[(int) (author % words.length)]);
+        }
+        for (long id = 0; id < books; id++) {
+            int i = (int) id;
+            index.putBook(id, words[i % 16] + " " + words[(i / 16) % 16] + " " + words[(i / 256) % 16] + " " + id,
+                    id % 5_000);
+        }
+
+        String[] queries = {"shadow riv", "winter", "sto glass", "author42 night", "crown harbor ma", "12345"};
+        for (String query : queries) {
+            index.search(query, 20);
+        }
+        int runs = 50;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            for (String query : queries) {
+                index.search(query, 20);
+            }
+        }
+        double micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started) / (double) (runs * queries.length);
+        Assertions.assertTrue(micros < 100_000, "search over " + books + " titles: " + micros + " us per query");
+        Assertions.assertEquals(12345L, index.search("12345", 20).get(0));
+        Assertions.assertEquals(20, index.search("winter", 20).size());
+    }
+}
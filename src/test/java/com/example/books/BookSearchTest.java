@@ -0,0 +1,87 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.BookSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testSearchFollowsWritePaths() throws Exception {
+        Author author = authorRepository.save(new Author("Octavia Butler"));
+        Genre genre = genreRepository.save(new Genre("Science Fiction"));
+        Book book = bookRepository.save(new Book("Parable of the Sower", author, genre, 12.5, 3));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "butler sow"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].author.name").value("Octavia Butler"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/" + author.getId())
+                        .content("{\"name\":\"Octavia E. Estelle Butler\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Assertions.assertEquals(List.of(book.getId()), bookSearchIndex.search("estelle parable", 10));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/batch")
+                        .content("[" + book.getId() + "]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "parable"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    public void testRebuildLoadsCatalogFromDatabase() {
+        Author author = authorRepository.save(new Author("Italo Calvino"));
+        Book book = bookRepository.save(new Book("Invisible Cities", author, null, 9.0, 1));
+
+        bookSearchIndex.rebuild();
+
+        Assertions.assertEquals(List.of(book.getId()), bookSearchIndex.search("calvino invis", 10));
+        Assertions.assertEquals(bookRepository.count(), bookSearchIndex.size());
+    }
+
+    @Test
+    public void testRolledBackWritesAreNotIndexed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/batch")
+                        .content("[{\"title\":\"Phantom Volume\",\"author\":{\"id\":-1}}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("FAILED"));
+
+        Assertions.assertEquals(List.of(), bookSearchIndex.search("phantom", 10));
+    }
+}
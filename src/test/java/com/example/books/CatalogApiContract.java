@@ -0,0 +1,196 @@
+package com.example.books;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP-level behavior shared by the servlet and the reactive catalog APIs. Subclasses only
+ * provide a client bound to a running server; everything is set up through the API itself.
+ */
+abstract class CatalogApiContract {
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST = new ParameterizedTypeReference<>() {
+    };
+
+    protected abstract WebTestClient client();
+
+    @Test
+    public void testAuthorLifecycle() {
+        String name = UniqueNames.of("John Doe");
+        String newName = UniqueNames.of("Jane Doe");
+        long id = create("/authors", named(name));
+
+        client().get().uri("/authors/" + id).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo(name).jsonPath("$.version").isEqualTo(0);
+        client().put().uri("/authors/" + id).contentType(MediaType.APPLICATION_JSON).bodyValue(named(newName))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(id).jsonPath("$.name").isEqualTo(newName)
+                .jsonPath("$.version").isEqualTo(1);
+        client().get().uri("/authors?after=" + (id - 1) + "&limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].version").isEqualTo(1);
+        client().delete().uri("/authors/" + id).exchange().expectStatus().isNoContent();
+        client().get().uri("/authors/" + id).exchange().expectStatus().isNotFound();
+        client().delete().uri("/authors/" + id).exchange().expectStatus().isNotFound();
+        client().put().uri("/authors/" + id).contentType(MediaType.APPLICATION_JSON).bodyValue(named("Nobody"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testGenreLifecycle() {
+        String name = UniqueNames.of("Fiction");
+        String newName = UniqueNames.of("Mystery");
+        long id = create("/genres", named(name));
+
+        client().get().uri("/genres/" + id).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo(name).jsonPath("$.version").isEqualTo(0);
+        client().put().uri("/genres/" + id).contentType(MediaType.APPLICATION_JSON).bodyValue(named(newName))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo(newName).jsonPath("$.version").isEqualTo(1);
+        client().delete().uri("/genres/" + id).exchange().expectStatus().isNoContent();
+        client().get().uri("/genres/" + id).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testBookLifecycle() {
+        String authorName = UniqueNames.of("John Doe");
+        String genreName = UniqueNames.of("Fiction");
+        long authorId = create("/authors", named(authorName));
+        long genreId = create("/genres", named(genreName));
+        long id = create("/books", book("Book Title", authorId, genreId, null));
+
+        client().get().uri("/books/" + id).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Book Title")
+                .jsonPath("$.author.id").isEqualTo(authorId)
+                .jsonPath("$.author.name").isEqualTo(authorName)
+                .jsonPath("$.genre.name").isEqualTo(genreName)
+                .jsonPath("$.quantityAvailable").isEqualTo(5)
+                .jsonPath("$.version").isEqualTo(0);
+        client().put().uri("/books/" + id).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book("New Title", authorId, genreId, 0L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("New Title").jsonPath("$.version").isEqualTo(1);
+        client().put().uri("/books/" + id).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book("Stale Title", authorId, genreId, 0L))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        client().get().uri("/books/" + id).exchange()
+                .expectBody().jsonPath("$.title").isEqualTo("New Title");
+        client().delete().uri("/books/" + id).exchange().expectStatus().isNoContent();
+        client().get().uri("/books/" + id).exchange().expectStatus().isNotFound();
+        client().put().uri("/books/" + id).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book("Gone", authorId, genreId, null))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testKeysetPagination() {
+        long first = create("/genres", named(UniqueNames.of("Genre 1")));
+        long second = create("/genres", named(UniqueNames.of("Genre 2")));
+        long third = create("/genres", named(UniqueNames.of("Genre 3")));
+
+        EntityExchangeResult<List<Map<String, Object>>> page = client().get()
+                .uri("/genres?after=" + (first - 1) + "&limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Next-Cursor")
+                .expectHeader().value(HttpHeaders.LINK, link -> Assertions.assertTrue(link.endsWith("; rel=\"next\""), link))
+                .expectBody(LIST).returnResult();
+        Assertions.assertEquals(List.of(first, second), ids(page.getResponseBody()));
+
+        String cursor = page.getResponseHeaders().getFirst("X-Next-Cursor");
+        List<Map<String, Object>> next = client().get().uri("/genres?cursor=" + cursor + "&limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody(LIST).returnResult().getResponseBody();
+        Assertions.assertEquals(List.of(third), ids(next));
+    }
+
+    @Test
+    public void testInvalidPagingParametersAreRejected() {
+        client().get().uri("/books?cursor=not-a-cursor!").exchange().expectStatus().isBadRequest();
+        client().get().uri("/authors?limit=0").exchange().expectStatus().isBadRequest();
+        client().get().uri("/genres?after=abc").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testUnknownIdsAreNotFound() {
+        client().get().uri("/books/" + Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+        client().get().uri("/authors/" + Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+        client().get().uri("/genres/" + Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+        client().delete().uri("/books/" + Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testExportStreamsEveryBook() {
+        long authorId = create("/authors", named(UniqueNames.of("John Doe")));
+        long genreId = create("/genres", named(UniqueNames.of("Fiction")));
+        List<Long> created = List.of(
+                create("/books", book("Export 1", authorId, genreId, null)),
+                create("/books", book("Export 2", authorId, genreId, null)));
+
+        List<Map<String, Object>> exported = client().get().uri("/books/export")
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(new ParameterizedTypeReference<Map<String, Object>>() {
+                })
+                .getResponseBody().collectList().block();
+
+        Assertions.assertNotNull(exported);
+        Assertions.assertTrue(ids(exported).containsAll(created));
+    }
+
+    @Test
+    public void testNamesTakenInAnyCaseAreConflicts() {
+        String name = UniqueNames.of("Taken Genre");
+        create("/genres", named(name));
+        long other = create("/genres", named(UniqueNames.of("Other Genre")));
+
+        client().post().uri("/genres").contentType(MediaType.APPLICATION_JSON).bodyValue(named(name.toUpperCase()))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        client().put().uri("/genres/" + other).contentType(MediaType.APPLICATION_JSON).bodyValue(named(name))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    protected static String named(String name) {
+        return "{\"name\":\"" + name + "\"}";
+    }
+
+    protected long create(String path, String json) {
+        Map<String, Object> body = client().post().uri(path).contentType(MediaType.APPLICATION_JSON).bodyValue(json)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<Map<String, Object>>() {
+                })
+                .returnResult().getResponseBody();
+        Assertions.assertNotNull(body);
+        return ((Number) body.get("id")).longValue();
+    }
+
+    protected static String book(String title, long authorId, long genreId, Long version) {
+        return "{\"title\":\"" + title + "\",\"author\":{\"id\":" + authorId + "},\"genre\":{\"id\":" + genreId + "},"
+                + "\"price\":10.99,\"quantityAvailable\":5" + (version != null ? ",\"version\":" + version : "") + "}";
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+    }
+}
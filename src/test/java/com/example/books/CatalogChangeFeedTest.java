@@ -0,0 +1,235 @@
+package com.example.books;
+
+import com.example.books.dto.ChangeBatch;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.CatalogChange;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.CatalogChangeFeed;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CatalogChangeFeedTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 250;
+    private static final int BOOKS = 16;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogChangeFeed changeFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testControllerWritesAreRecordedInOrder() throws Exception {
+        long since = publishedHead();
+        long authorId = create("/authors", "{\"name\":\"Feed Author\"}");
+        long genreId = create("/genres", "{\"name\":\"Feed Genre\"}");
+        String book = "{\"title\":\"Feed Title\",\"author\":{\"id\":" + authorId + "},\"genre\":{\"id\":" + genreId
+                + "},\"price\":10,\"quantityAvailable\":5}";
+        long bookId = create("/books", book);
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + bookId)
+                        .contentType(MediaType.APPLICATION_JSON).content(book.replace("Feed Title", "Feed Title 2")))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/" + authorId)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Feed Author 2\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + bookId + "/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + bookId)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\":1}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/" + bookId))
+                .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
+        changeFeed.publish();
+
+        JsonNode batch = objectMapper.readTree(getChanges("/changes?wait=0&since=" + since)
+                .andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString());
+        List<String> changes = new ArrayList<>();
+        long expectedSeq = since;
+        for (JsonNode change : batch.path("changes")) {
+            Assertions.assertEquals(++expectedSeq, change.path("seq").asLong());
+            changes.add(change.path("type").asText() + " " + change.path("operation").asText() + " "
+                    + change.path("entityId").asLong());
+        }
+        Assertions.assertEquals(List.of("AUTHOR UPSERT " + authorId, "GENRE UPSERT " + genreId,
+                "BOOK UPSERT " + bookId, "BOOK UPSERT " + bookId, "AUTHOR UPSERT " + authorId,
+                "BOOK UPSERT " + bookId, "BOOK UPSERT " + bookId, "BOOK DELETE " + bookId), changes);
+        Assertions.assertEquals(expectedSeq, batch.path("next").asLong());
+    }
+
+    @Test
+    public void testRolledBackWritesLeaveNoChanges() {
+        long since = publishedHead();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            authorRepository.saveAndFlush(new Author("Rolled Back"));
+            status.setRollbackOnly();
+        });
+        changeFeed.publish();
+        Assertions.assertTrue(changeFeed.read(since, 10).getChanges().isEmpty());
+    }
+
+    @Test
+    public void testLongPollIsAnsweredByTheNextChange() throws Exception {
+        long since = publishedHead();
+        MvcResult waiting = mockMvc.perform(MockMvcRequestBuilders.get("/changes?wait=30&since=" + since))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        long genreId = create("/genres", "{\"name\":\"Long Poll Genre\"}");
+        changeFeed.publish();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(waiting))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].seq").value(since + 1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].type").value("GENRE"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].entityId").value(genreId))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").value(since + 1));
+    }
+
+    @Test
+    public void testPrunedChangesAreGone() throws Exception {
+        create("/genres", "{\"name\":\"Pruned Genre 1\"}");
+        create("/genres", "{\"name\":\"Pruned Genre 2\"}");
+        long head = publishedHead();
+        jdbcTemplate.update("update catalog_changes set changed_at = ? where seq <= ?",
+                Timestamp.from(Instant.now().minus(30, ChronoUnit.DAYS)), head);
+        changeFeed.prune();
+
+        getChanges("/changes?wait=0&since=0").andExpect(MockMvcResultMatchers.status().isGone());
+        getChanges("/changes?wait=0&since=" + (head - 1))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].seq").value(head));
+        mockMvc.perform(MockMvcRequestBuilders.get("/changes/head"))
+                .andExpect(MockMvcResultMatchers.content().string(String.valueOf(head)));
+    }
+
+    /**
+     * Reservations from {@link #THREADS} threads, each writing its outbox row in the reservation's
+     * transaction, while a consumer follows the feed with long polls. The consumer must see
+     * every change, in order, within a minute of the last write.
+     */
+    @Test
+    public void testFeedKeepsUpWithHighWriteRate() throws Exception {
+        Author author = authorRepository.save(new Author("Busy Author"));
+        Genre genre = genreRepository.save(new Genre("Busy Genre"));
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookRepository.save(new Book("Busy Title " + i, author, genre, 10, 1_000_000)).getId());
+        }
+        long since = publishedHead();
+        int total = THREADS * WRITES_PER_THREAD;
+
+        Map<Long, Integer> seen = new HashMap<>();
+        long[] lastSeq = {since};
+        CompletableFuture<Void> caughtUp = CompletableFuture.runAsync(() -> {
+            int received = 0;
+            while (received < total) {
+                CompletableFuture<ChangeBatch> next = new CompletableFuture<>();
+                changeFeed.await(lastSeq[0], 1000, next::complete);
+                ChangeBatch batch = next.orTimeout(30, TimeUnit.SECONDS).join();
+                for (CatalogChange change : batch.getChanges()) {
+                    Assertions.assertEquals(++lastSeq[0], change.getSeq());
+                    seen.merge(change.getEntityId(), 1, Integer::sum);
+                    received++;
+                }
+            }
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    long bookId = bookIds.get((thread * WRITES_PER_THREAD + i) % BOOKS);
+                    mockMvc.perform(MockMvcRequestBuilders.post("/books/" + bookId + "/reserve"))
+                            .andExpect(MockMvcResultMatchers.status().isNoContent());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        caughtUp.get(60, TimeUnit.SECONDS);
+
+        for (Long bookId : bookIds) {
+            Assertions.assertEquals(total / BOOKS, seen.get(bookId));
+        }
+        Assertions.assertEquals(since + total, lastSeq[0]);
+    }
+
+    private long create(String path, String body) throws Exception {
+        String created = mockMvc.perform(MockMvcRequestBuilders.post(path)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(MockMvcResultMatchers.status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).path("id").asLong();
+    }
+
+    private ResultActions getChanges(String path) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn();
+        return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result));
+    }
+
+    private long publishedHead() {
+        changeFeed.publish();
+        return changeFeed.head();
+    }
+}
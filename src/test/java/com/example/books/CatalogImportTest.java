@@ -0,0 +1,139 @@
+package com.example.books;
+
+import com.example.books.dto.BookView;
+import com.example.books.model.Author;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.repository.NameKey;
+import com.example.books.service.BookSearchIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CatalogImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Test
+    public void testImportResolvesNamesAndReportsRejects() throws Exception {
+        Author existing = authorRepository.save(new Author("Existing Author"));
+        String csv = """
+                quantityAvailable,price,title,author,genre,isbn
+                3,10.50,Plain Import,Existing Author,Imported Genre,111
+                1,7.25,"Quoted, with a
+                line break",New Import Author,Imported Genre,222
+                ,abc,Bad Price,New Import Author,,333
+                2,4.00,,New Import Author,,444
+
+                -1,4.00,Negative Stock,,,555
+                0,9.99,Another By New Author,NEW IMPORT AUTHOR,,666
+                """;
+
+        List<JsonNode> lines = importCsv(csv);
+
+        JsonNode done = lines.get(lines.size() - 1);
+        Assertions.assertTrue(done.path("done").asBoolean());
+        Assertions.assertEquals(6, done.path("records").asLong());
+        Assertions.assertEquals(3, done.path("imported").asLong());
+        Assertions.assertEquals(3, done.path("rejected").asLong());
+        JsonNode rejects = lines.get(0).path("rejects");
+        Assertions.assertEquals(List.of(5L, 6L, 8L), List.of(rejects.get(0).path("line").asLong(),
+                rejects.get(1).path("line").asLong(), rejects.get(2).path("line").asLong()));
+        Assertions.assertEquals("price must be a number", rejects.get(0).path("reason").asText());
+
+        List<BookView> books = bookRepository.findViewsByIdIn(bookSearchIndex.search("import", 10));
+        Assertions.assertEquals(3, books.size());
+        BookView plain = books.stream().filter(book -> book.getTitle().equals("Plain Import")).findFirst().orElseThrow();
+        Assertions.assertEquals(existing.getId(), plain.getAuthor().getId());
+        Assertions.assertEquals(3, plain.getQuantityAvailable());
+        BookView quoted = books.stream().filter(book -> book.getTitle().startsWith("Quoted")).findFirst().orElseThrow();
+        Assertions.assertEquals("Quoted, with a\nline break", quoted.getTitle());
+        Assertions.assertEquals(plain.getGenre().getId(), quoted.getGenre().getId());
+        BookView another = books.stream().filter(book -> book.getTitle().startsWith("Another")).findFirst().orElseThrow();
+        Assertions.assertEquals(quoted.getAuthor().getId(), another.getAuthor().getId(), "names are matched in any case");
+        Assertions.assertEquals("New Import Author", authorRepository.findByName("new import author").orElseThrow().getName());
+        Assertions.assertTrue(genreRepository.findByName("Imported Genre").isPresent());
+    }
+
+    @Test
+    public void testMissingRequiredColumnIsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/import")
+                        .contentType("text/csv")
+                        .content("title,author\nSome Book,Someone\n"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @Tag("load")
+    public void testLargeImportThroughput() throws Exception {
+        int rows = 100_000;
+        StringBuilder csv = new StringBuilder("title,author,genre,price,quantityAvailable\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Bulk Book ").append(i).append(",Bulk Author ").append(i % 1000)
+                    .append(",Bulk Genre ").append(i % 20).append(',').append(i % 100).append(".99,").append(i % 7)
+                    .append('\n');
+        }
+        long before = bookRepository.count();
+
+        List<JsonNode> lines = importCsv(csv.toString());
+
+        JsonNode done = lines.get(lines.size() - 1);
+        Assertions.assertEquals(rows, done.path("imported").asLong());
+        Assertions.assertEquals(0, done.path("rejected").asLong());
+        Assertions.assertEquals(before + rows, bookRepository.count());
+        Assertions.assertTrue(lines.size() > 2, "progress is reported per chunk");
+        List<String> authors = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            authors.add(NameKey.of("Bulk Author " + i));
+        }
+        Assertions.assertEquals(1000, authorRepository.findReferencesByNameKeyIn(authors).size());
+    }
+
+    private List<JsonNode> importCsv(String csv) throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.post("/books/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
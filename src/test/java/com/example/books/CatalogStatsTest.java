@@ -0,0 +1,159 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.CatalogStatsService;
+import com.example.books.service.InventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CatalogStatsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private CatalogStatsService catalogStats;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testStatsFollowEveryKindOfWrite() throws Exception {
+        Author author = authorRepository.save(new Author("Stats Author"));
+        Genre first = genreRepository.save(new Genre("Stats Genre One"));
+        Genre second = genreRepository.save(new Genre("Stats Genre Two"));
+
+        long expensive = createBook("{\"title\":\"Expensive\",\"author\":{\"id\":" + author.getId() + "},\"genre\":{\"id\":"
+                + first.getId() + "},\"price\":10.00,\"quantityAvailable\":5}");
+        long cheap = createBook("{\"title\":\"Cheap\",\"author\":{\"id\":" + author.getId() + "},\"genre\":{\"id\":"
+                + first.getId() + "},\"price\":2.50,\"quantityAvailable\":4}");
+        expectStats("/genres/" + first.getId(), 2, 9, 60.0);
+        expectStats("/authors/" + author.getId(), 2, 9, 60.0);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + expensive)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Expensive\",\"author\":{\"id\":" + author.getId() + "},\"genre\":{\"id\":"
+                                + second.getId() + "},\"price\":10.00,\"quantityAvailable\":3}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        expectStats("/genres/" + first.getId(), 1, 4, 10.0);
+        expectStats("/genres/" + second.getId(), 1, 3, 30.0);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + expensive + "/reserve").param("quantity", "2"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + cheap)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":5}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        expectStats("/genres/" + second.getId(), 1, 1, 10.0);
+        expectStats("/authors/" + author.getId(), 2, 5, 30.0);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + expensive + "]"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/" + cheap))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        expectStats("/genres/" + second.getId(), 0, 0, 0.0);
+        expectStats("/authors/" + author.getId(), 0, 0, 0.0);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres/" + Long.MAX_VALUE + "/stats"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testConcurrentReservationsAreCounted() throws Exception {
+        Genre genre = genreRepository.save(new Genre("Stats Hot Genre"));
+        Book book = bookRepository.save(new Book("Hot Title", null, genre, 1.25, 1000));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<InventoryService.Result>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                results.add(executor.submit(() -> inventoryService.reserve(book.getId(), 2)));
+            }
+            for (Future<InventoryService.Result> result : results) {
+                Assertions.assertEquals(InventoryService.Result.OK, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(200, catalogStats.genre(genre.getId()).getStock());
+        Assertions.assertEquals(250.0, catalogStats.genre(genre.getId()).getInventoryValue());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/stats"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.genres." + genre.getId() + ".stock").value(200));
+    }
+
+    @Test
+    public void testReconcileRebuildsPersistentDrift() {
+        catalogStats.rebuild();
+        Assertions.assertTrue(catalogStats.reconcile());
+        Genre genre = genreRepository.save(new Genre("Stats Drift Genre"));
+        Book book = bookRepository.save(new Book("Drifting", null, genre, 4.00, 5));
+        Assertions.assertTrue(catalogStats.reconcile());
+
+        // Written behind the application's back, as another instance would.
+        jdbcTemplate.update("update books set quantity_available = 50 where id = ?", book.getId());
+
+        Assertions.assertFalse(catalogStats.reconcile());
+        Assertions.assertEquals(5, catalogStats.genre(genre.getId()).getStock());
+        Assertions.assertFalse(catalogStats.reconcile());
+        Assertions.assertEquals(50, catalogStats.genre(genre.getId()).getStock());
+        Assertions.assertEquals(200.0, catalogStats.genre(genre.getId()).getInventoryValue());
+        Assertions.assertTrue(catalogStats.reconcile());
+    }
+
+    private long createBook(String json) throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders.post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("id").asLong();
+    }
+
+    private void expectStats(String path, long books, long stock, double inventoryValue) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(path + "/stats"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.books").value(books))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.stock").value(stock))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.inventoryValue").value(inventoryValue));
+    }
+}
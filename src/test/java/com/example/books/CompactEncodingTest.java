@@ -0,0 +1,132 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CompactEncodingTest {
+
+    private static final int PAGE = 200;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    private Long firstId;
+
+    @BeforeEach
+    public void setUp() {
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            authors.add(authorRepository.save(new Author(UniqueNames.of("Compact Author"))));
+        }
+        List<Genre> genres = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            genres.add(genreRepository.save(new Genre(UniqueNames.of("Compact Genre"))));
+        }
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            books.add(new Book("Compact Title " + i, authors.get(i % authors.size()), genres.get(i % genres.size()),
+                    5 + i / 4.0, i % 9));
+        }
+        firstId = bookRepository.saveAll(books).get(0).getId();
+    }
+
+    @Test
+    public void testCborPageNormalizesAuthorsAndGenres() throws Exception {
+        String path = "/books?limit=" + PAGE / 2 + "&after=" + (firstId - 1);
+        HttpResponse<byte[]> json = get(path, MediaType.APPLICATION_JSON_VALUE, null);
+        HttpResponse<byte[]> cbor = get(path, MediaType.APPLICATION_CBOR_VALUE, null);
+
+        Assertions.assertEquals(200, cbor.statusCode());
+        Assertions.assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        Assertions.assertTrue(cbor.headers().firstValue(HttpHeaders.LINK).isPresent(), "paging headers are kept");
+        JsonNode page = new CBORMapper().readTree(cbor.body());
+        Assertions.assertEquals(10, page.path("authors").size());
+        Assertions.assertEquals(4, page.path("genres").size());
+        Assertions.assertEquals(PAGE / 2, page.path("books").size());
+        JsonNode first = page.path("books").get(0);
+        JsonNode expected = objectMapper.readTree(json.body()).get(0);
+        Assertions.assertEquals(expected.path("id").asLong(), first.get(0).asLong());
+        Assertions.assertEquals(expected.path("title").asText(), first.get(1).asText());
+        Assertions.assertEquals(expected.path("author").path("id").asLong(), first.get(2).asLong());
+        Assertions.assertEquals(expected.path("genre").path("id").asLong(), first.get(3).asLong());
+        Assertions.assertEquals(expected.path("price").asDouble(), first.get(4).asDouble());
+
+        Assertions.assertTrue(cbor.body().length * 4 < json.body().length,
+                "JSON " + json.body().length + " bytes, CBOR " + cbor.body().length);
+
+        HttpResponse<byte[]> single = get("/books/" + firstId, MediaType.APPLICATION_CBOR_VALUE, null);
+        Assertions.assertEquals(200, single.statusCode());
+        Assertions.assertEquals(expected.path("title").asText(), new CBORMapper().readTree(single.body()).path("title").asText());
+    }
+
+    @Test
+    public void testJsonStaysTheDefaultAndIsCompressed() throws Exception {
+        String path = "/books?limit=" + PAGE + "&after=" + (firstId - 1);
+        HttpResponse<byte[]> plain = get(path, "*/*", null);
+        Assertions.assertTrue(plain.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow()
+                .startsWith(MediaType.APPLICATION_JSON_VALUE));
+        Assertions.assertTrue(plain.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+
+        HttpResponse<byte[]> gzipped = get(path, MediaType.APPLICATION_JSON_VALUE, "gzip");
+        Assertions.assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElseThrow());
+        byte[] body = gunzip(gzipped.body());
+        Assertions.assertArrayEquals(plain.body(), body);
+        Assertions.assertTrue(gzipped.body().length * 4 < body.length,
+                "JSON " + body.length + " bytes, gzipped " + gzipped.body().length);
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
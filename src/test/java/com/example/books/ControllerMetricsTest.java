@@ -0,0 +1,102 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class ControllerMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testControllerMethodsAreTimed() throws Exception {
+        Book book = saveBooks(1).get(0);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + Long.MAX_VALUE))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        Timer found = meterRegistry.get("books.controller.requests")
+                .tags("controller", "BookController", "method", "getBookById", "status", "200").timer();
+        Timer missing = meterRegistry.get("books.controller.requests")
+                .tags("controller", "BookController", "method", "getBookById", "status", "404").timer();
+        Assertions.assertEquals(1, found.count());
+        Assertions.assertEquals(1, missing.count());
+    }
+
+    @Test
+    public void testListIssuesOneStatementRegardlessOfPageSize() throws Exception {
+        saveBooks(30);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=30"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("books.controller.sql.statements")
+                .tags("controller", "BookController", "method", "getAllBooks").summary();
+        Assertions.assertEquals(1, statements.count());
+        Assertions.assertEquals(1.0, statements.max());
+    }
+
+    @Test
+    public void testPrometheusEndpointExposesPoolHibernateAndRepositoryMetrics() throws Exception {
+        saveBooks(1);
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        String scrape = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Assertions.assertTrue(scrape.contains("books_controller_requests_seconds_bucket{"));
+        Assertions.assertTrue(scrape.contains("books_controller_sql_statements_bucket{"));
+        Assertions.assertTrue(scrape.contains("hikaricp_connections_active{"));
+        Assertions.assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket{"));
+        Assertions.assertTrue(scrape.contains("hibernate_statements_total{"));
+        Assertions.assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+    }
+
+    private List<Book> saveBooks(int count) {
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Book " + i, author, genre, 10.99, 5));
+        }
+        return bookRepository.saveAll(books);
+    }
+}
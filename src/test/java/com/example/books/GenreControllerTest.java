@@ -1,8 +1,12 @@
 package com.example.books;
 
 import com.example.books.controller.GenreController;
+import com.example.books.controller.ListResponseCache;
 import com.example.books.model.Genre;
 import com.example.books.repository.GenreRepository;
+import com.example.books.service.BatchService;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.CatalogStatsService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -11,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -21,6 +26,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,13 +40,25 @@ public class GenreControllerTest {
     @MockBean
     private GenreRepository genreRepository;
 
+    @MockBean
+    private BatchService batchService;
+
+    @MockBean
+    private CatalogStatsService catalogStats;
+
+    @MockBean
+    private CatalogChangeLog changeLog;
+
+    @MockBean
+    private ListResponseCache listCache;
+
     @Test
     public void testGetAllGenres() throws Exception {
         Genre genre1 = new Genre(1L, "Fiction");
         Genre genre2 = new Genre(2L, "Mystery");
         List<Genre> genres = Arrays.asList(genre1, genre2);
 
-        when(genreRepository.findAll()).thenReturn(genres);
+        when(genreRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(genres);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/genres"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -107,6 +126,26 @@ public class GenreControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
 
+    @Test
+    public void testUpsertGenreByName() throws Exception {
+        Genre genre = new Genre(7L, "Fiction");
+
+        when(genreRepository.nextId()).thenReturn(7L);
+        when(changeLog.recordUpdate(any(), eq(7L), any())).thenReturn(1);
+        when(genreRepository.findIdByName(eq("fiction"))).thenReturn(null, 7L);
+        when(genreRepository.findById(eq(7L))).thenReturn(Optional.of(genre));
+        when(genreRepository.findByName(eq("fiction"))).thenReturn(Optional.of(genre));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/by-name/fiction"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string("Location", "/genres/7"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Fiction"));
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/by-name/fiction"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(7));
+        verify(genreRepository, times(1)).nextId();
+    }
+
     private String asJsonString(Object obj) throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(obj);
@@ -0,0 +1,239 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.IdempotencyStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IdempotencyTest {
+
+    private static final String KEY = "Idempotency-Key";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testRetryReplaysTheFirstResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"name\": \"Retried Author\"}";
+
+        MockHttpServletResponse first = postAuthor(key, body);
+        MockHttpServletResponse retry = postAuthor(key, body);
+
+        Assertions.assertEquals(200, first.getStatus());
+        Assertions.assertEquals(200, retry.getStatus());
+        Assertions.assertEquals(first.getContentAsString(), retry.getContentAsString());
+        Assertions.assertEquals("true", retry.getHeader("Idempotent-Replayed"));
+        Assertions.assertEquals(1, authorRepository.findAll().stream()
+                .filter(author -> author.getName().equals("Retried Author")).count());
+
+        // without a key every request is applied, and the second one finds the name taken
+        Assertions.assertEquals(200, postAuthor(null, "{\"name\": \"Twice Author\"}").getStatus());
+        Assertions.assertEquals(409, postAuthor(null, "{\"name\": \"Twice Author\"}").getStatus());
+    }
+
+    @Test
+    public void testKeyReusedForAnotherRequestIsRefused() throws Exception {
+        String key = UUID.randomUUID().toString();
+        Assertions.assertEquals(200, postAuthor(key, "{\"name\": \"First Author\"}").getStatus());
+        Assertions.assertEquals(422, postAuthor(key, "{\"name\": \"Second Author\"}").getStatus());
+    }
+
+    @Test
+    public void testFailedRequestReleasesItsKey() throws Exception {
+        Author author = authorRepository.save(new Author("Patched Author"));
+        String key = UUID.randomUUID().toString();
+        String patch = "{\"name\": \"Renamed Author\"}";
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/" + author.getId()).header(KEY, key)
+                        .header("If-Match", "\"99\"").contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/" + author.getId()).header(KEY, key)
+                        .header("If-Match", "\"99\"").contentType(MediaType.APPLICATION_JSON).content(patch))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("Idempotent-Replayed"));
+    }
+
+    @Test
+    public void testConcurrentRetriesCreateOneBook() throws Exception {
+        Author author = authorRepository.save(new Author("Concurrent Author"));
+        Genre genre = genreRepository.save(new Genre("Concurrent Genre"));
+        String title = "Checkout " + UUID.randomUUID();
+        String body = "{\"title\": \"" + title + "\", \"author\": {\"id\": " + author.getId() + "}, \"genre\": {\"id\": "
+                + genre.getId() + "}, \"price\": 12.5, \"quantityAvailable\": 3}";
+        String key = UUID.randomUUID().toString();
+        int clients = 64;
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(MockMvcRequestBuilders.post("/books").header(KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn().getResponse();
+            }));
+        }
+        start.countDown();
+        Set<String> bodies = ConcurrentHashMap.newKeySet();
+        for (Future<MockHttpServletResponse> response : responses) {
+            if (response.get().getStatus() == 409) {
+                Assertions.assertEquals("1", response.get().getHeader("Retry-After"));
+                continue;
+            }
+            Assertions.assertEquals(200, response.get().getStatus());
+            bodies.add(response.get().getContentAsString());
+        }
+        executor.shutdown();
+        MockHttpServletResponse retry = mockMvc.perform(MockMvcRequestBuilders.post("/books").header(KEY, key)
+                .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn().getResponse();
+        Assertions.assertEquals(200, retry.getStatus());
+        bodies.add(retry.getContentAsString());
+
+        Assertions.assertEquals(1, bodies.size(), "every retry after the first request gets its response");
+        Assertions.assertEquals(1, bookRepository.findAll().stream().filter(book -> title.equals(book.getTitle())).count());
+    }
+
+    @Test
+    public void testOversizedBodyWithKeyIsRefused() throws Exception {
+        String name = "x".repeat(1024 * 1024);
+
+        Assertions.assertEquals(413, postAuthor(UUID.randomUUID().toString(), "{\"name\": \"" + name + "\"}").getStatus());
+        Assertions.assertFalse(authorRepository.findAll().stream().anyMatch(author -> name.equals(author.getName())));
+    }
+
+    /**
+     * Claims, completions and replays from 8 threads against a store bounded at 1000 keys.
+     */
+    @Test
+    @Tag("load")
+    public void testStoreStaysFastAndBounded() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(jdbcTemplate, Duration.ofHours(1), 1000, false);
+        IdempotencyStore.Response response = new IdempotencyStore.Response(200, MediaType.APPLICATION_JSON_VALUE,
+                new String[0], "{}".getBytes(StandardCharsets.UTF_8));
+        byte[] fingerprint = new byte[32];
+        int threads = 8;
+        int keysPerThread = 50_000;
+
+        AtomicInteger replays = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    String key = thread + "-" + i;
+                    Assertions.assertEquals(IdempotencyStore.Outcome.EXECUTE, store.claim(key, fingerprint).outcome());
+                    store.complete(key, response);
+                    // a retry of the same key, and one of a key shared by all threads
+                    for (String retried : List.of(key, "shared")) {
+                        IdempotencyStore.Claim retry = store.claim(retried, fingerprint);
+                        if (retry.outcome() == IdempotencyStore.Outcome.REPLAY) {
+                            Assertions.assertSame(response, retry.response());
+                            replays.incrementAndGet();
+                        } else if (retry.outcome() == IdempotencyStore.Outcome.IN_PROGRESS) {
+                            // claimed by another thread that has not completed it yet
+                            Assertions.assertEquals("shared", retried);
+                        } else {
+                            // trimmed away already by the other threads' keys
+                            Assertions.assertEquals(IdempotencyStore.Outcome.EXECUTE, retry.outcome());
+                            store.complete(retried, response);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int operations = threads * keysPerThread * 4;
+
+        Assertions.assertTrue(store.size() <= 1000 + threads, "keys kept: " + store.size());
+        Assertions.assertTrue(replays.get() > operations / 4, "replays: " + replays.get());
+        Assertions.assertTrue(operations / seconds > 50_000, "operations per second: " + operations / seconds);
+    }
+
+    @Test
+    public void testPersistedKeysAreSharedBetweenInstances() {
+        IdempotencyStore first = new IdempotencyStore(jdbcTemplate, Duration.ofHours(1), 100, true);
+        IdempotencyStore second = new IdempotencyStore(jdbcTemplate, Duration.ofHours(1), 100, true);
+        String key = UUID.randomUUID().toString();
+        byte[] fingerprint = new byte[32];
+        byte[] other = new byte[32];
+        other[0] = 1;
+        IdempotencyStore.Response response = new IdempotencyStore.Response(201, MediaType.APPLICATION_JSON_VALUE,
+                new String[] {"ETag", "\"0\""}, "{\"id\": 1}".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(IdempotencyStore.Outcome.EXECUTE, first.claim(key, fingerprint).outcome());
+        Assertions.assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, second.claim(key, fingerprint).outcome());
+        first.complete(key, response);
+
+        IdempotencyStore.Claim replay = second.claim(key, fingerprint);
+        Assertions.assertEquals(IdempotencyStore.Outcome.REPLAY, replay.outcome());
+        Assertions.assertEquals(201, replay.response().status());
+        Assertions.assertArrayEquals(response.headers(), replay.response().headers());
+        Assertions.assertArrayEquals(response.body(), replay.response().body());
+        Assertions.assertEquals(IdempotencyStore.Outcome.MISMATCH, second.claim(key, other).outcome());
+
+        String released = UUID.randomUUID().toString();
+        Assertions.assertEquals(IdempotencyStore.Outcome.EXECUTE, first.claim(released, fingerprint).outcome());
+        first.release(released);
+        Assertions.assertEquals(IdempotencyStore.Outcome.EXECUTE, second.claim(released, fingerprint).outcome());
+    }
+
+    private MockHttpServletResponse postAuthor(String key, String body) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/authors").contentType(MediaType.APPLICATION_JSON).content(body);
+        if (key != null) {
+            request.header(KEY, key);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class InventoryReservationTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int STOCK = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        Book book = saveBook(STOCK);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    int status = mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/reserve"))
+                            .andReturn().getResponse().getStatus();
+                    if (status == 204) {
+                        reserved.incrementAndGet();
+                    } else if (status == 409) {
+                        rejected.incrementAndGet();
+                    } else {
+                        throw new AssertionError("unexpected status " + status);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        Assertions.assertEquals(STOCK, reserved.get());
+        Assertions.assertEquals(attempts - STOCK, rejected.get());
+        Assertions.assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getQuantityAvailable());
+    }
+
+    @Test
+    public void testReleaseReturnsStock() throws Exception {
+        Book book = saveBook(1);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/release"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+        Assertions.assertEquals(1, bookRepository.findById(book.getId()).orElseThrow().getQuantityAvailable());
+    }
+
+    @Test
+    public void testUpdateWithStaleVersionIsRejected() throws Exception {
+        Book book = saveBook(10);
+        Long staleVersion = book.getVersion();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + book.getId())
+                        .content("{\"title\":\"Renamed\",\"price\":1.0,\"quantityAvailable\":10,\"version\":" + staleVersion + "}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        Assertions.assertEquals(9, bookRepository.findById(book.getId()).orElseThrow().getQuantityAvailable());
+    }
+
+    private Book saveBook(int stock) {
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        return bookRepository.save(new Book("Hot Title", author, genre, 10.99, stock));
+    }
+}
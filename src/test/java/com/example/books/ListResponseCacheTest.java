@@ -0,0 +1,200 @@
+package com.example.books;
+
+import com.example.books.controller.KeysetPage;
+import com.example.books.controller.ListResponseCache;
+import com.example.books.model.Author;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.CatalogChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ListResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ListResponseCache listCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogChangeFeed changeFeed;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testRepeatedListIsServedFromCacheUntilAWrite() throws Exception {
+        genreRepository.save(new Genre("Cached Genre"));
+        // publishing moves the generation too; get it done before the first read
+        changeFeed.publish();
+        String first = getGenres();
+        double hits = hits();
+
+        Assertions.assertEquals(first, getGenres());
+        Assertions.assertEquals(hits + 1, hits());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/genres").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Posted Genre\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Assertions.assertTrue(getGenres().contains("Posted Genre"), "a write through the controller retires the page");
+
+        genreRepository.save(new Genre("Saved Genre"));
+        Assertions.assertTrue(getGenres().contains("Saved Genre"), "so does a committed change made elsewhere");
+    }
+
+    @Test
+    public void testPagingHeadersAndCborAreKept() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            authorRepository.save(new Author("Paged Author " + i));
+        }
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/authors?limit=2"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().exists(KeysetPage.NEXT_CURSOR_HEADER))
+                    .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.LINK))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(2));
+        }
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors?limit=2").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR));
+    }
+
+    /**
+     * Bytes allocated by the cache on a hit, against encoding the same page with Jackson, which is
+     * the least an uncached request allocates on top of its query.
+     */
+    @Test
+    public void testHitsAllocateAlmostNothing() throws Exception {
+        List<Genre> genres = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            genres.add(new Genre((long) i, "Allocation Genre " + i));
+        }
+        Supplier<ResponseEntity<List<Genre>>> page = () -> ResponseEntity.ok(genres);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/allocation");
+        DiscardingResponse response = new DiscardingResponse();
+        Assertions.assertTrue(listCache.write(request, response, page));
+
+        int rounds = 20_000;
+        long hitBytes = allocatedBy(() -> listCache.write(request, response, page), rounds);
+        long encodeBytes = allocatedBy(() -> objectMapper.writeValueAsBytes(genres), rounds);
+        Assertions.assertTrue(hitBytes < 1024, "hit allocated " + hitBytes + " bytes");
+        Assertions.assertTrue(hitBytes * 10 < encodeBytes, "hit " + hitBytes + " bytes, encoding " + encodeBytes);
+    }
+
+    private String getGenres() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/genres?limit=1000"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        return result.getResponse().getContentAsString();
+    }
+
+    private double hits() {
+        return meterRegistry.get("books.http.list_cache").tag("result", "hit").functionCounter().count();
+    }
+
+    private static long allocatedBy(Call call, int rounds) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < rounds; i++) {
+            call.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            call.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    /**
+     * Keeps nothing, so that only the cache's own allocations are measured.
+     */
+    private static final class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public void setStatus(int sc) {
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+        }
+
+        @Override
+        public void setContentType(String type) {
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.books;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * The JCache provider keeps one cache manager per configuration URI, so every application started
+ * from {@code ehcache.xml} shares the manager of the cached test contexts, and closing it closes
+ * theirs. The load tests that start and close their own applications point them at a copy.
+ */
+final class OwnCacheManager {
+
+    private OwnCacheManager() {
+    }
+
+    /**
+     * Arguments that give an application a cache manager of its own, configured like
+     * {@code ehcache.xml}.
+     */
+    static List<String> args() {
+        String uri = copy().toUri().toString();
+        return List.of(
+                "--spring.cache.jcache.config=" + uri,
+                "--spring.jpa.properties.hibernate.javax.cache.uri=" + uri);
+    }
+
+    private static Path copy() {
+        try (InputStream config = OwnCacheManager.class.getResourceAsStream("/ehcache.xml")) {
+            Path copy = Files.createTempFile("ehcache-", ".xml");
+            copy.toFile().deleteOnExit();
+            Files.copy(config, copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
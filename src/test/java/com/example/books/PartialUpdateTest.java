@@ -0,0 +1,173 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.BookSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class PartialUpdateTest {
+
+    private static final MediaType MERGE_PATCH = MediaType.parseMediaType("application/merge-patch+json");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Author author;
+    private Genre genre;
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        book = bookRepository.save(new Book("Original Title", author, genre, 10.99, 5));
+    }
+
+    @Test
+    public void testPatchUpdatesOnlyGivenFieldsWithoutLoadingTheBook() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MERGE_PATCH)
+                        .content("{\"price\":7.5}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(7.5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Original Title"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value(author.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.quantityAvailable").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(1));
+
+        Assertions.assertEquals(0, statistics.getEntityLoadCount());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(7.5));
+    }
+
+    @Test
+    public void testStaleIfMatchIsRejected() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantityAvailable\":9}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantityAvailable\":1}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantityAvailable\":1}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        Assertions.assertEquals(9, bookRepository.findStockById(book.getId()).orElseThrow());
+    }
+
+    @Test
+    public void testPatchReferencesAndClearsFields() throws Exception {
+        Author other = authorRepository.save(new Author(UniqueNames.of("Ursula Leguin")));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getId())
+                        .contentType(MERGE_PATCH)
+                        .content("{\"title\":\"Renamed Wizard\",\"author\":{\"id\":" + other.getId() + "},\"genre\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value(other.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.genre").doesNotExist());
+
+        Assertions.assertEquals(java.util.List.of(book.getId()), bookSearchIndex.search("renamed leguin", 10));
+    }
+
+    @Test
+    public void testInvalidPatchesAreRejected() throws Exception {
+        String path = "/books/" + book.getId();
+        for (String body : new String[]{"{}", "{\"version\":3}", "{\"price\":\"cheap\"}", "{\"quantityAvailable\":1.5}",
+                "{\"author\":{\"id\":" + Long.MAX_VALUE + "}}"}) {
+            mockMvc.perform(MockMvcRequestBuilders.patch(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1}"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testAuthorAndGenrePatchCheckVersions() throws Exception {
+        String newName = UniqueNames.of("Jane Doe");
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/" + author.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MERGE_PATCH)
+                        .content("{\"name\":\"" + newName + "\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(newName));
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/" + author.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MERGE_PATCH)
+                        .content("{\"name\":\"Too Late\"}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value(newName));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/genres/" + genre.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Mystery\",\"id\":1}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/genres/" + genre.getId())
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + UniqueNames.of("Mystery") + "\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.patch("/genres/" + Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Nothing\"}"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+}
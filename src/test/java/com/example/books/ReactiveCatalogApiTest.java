@@ -0,0 +1,108 @@
+package com.example.books;
+
+import com.example.books.model.Genre;
+import com.example.books.reactive.ReactiveBooksApplication;
+import com.example.books.repository.GenreRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the shared API contract against the reactive stack. The servlet application context only
+ * creates the schema; the reactive application is started on the same in-memory database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ReactiveCatalogApiTest extends CatalogApiContract {
+
+    private static final Pattern H2_MEMORY_URL = Pattern.compile("jdbc:h2:mem:([^;]+).*");
+
+    private static ConfigurableApplicationContext reactiveContext;
+    private static WebTestClient webTestClient;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @BeforeEach
+    public void startReactiveApplication() throws SQLException {
+        if (reactiveContext == null) {
+            reactiveContext = startOnSameDatabase(dataSource);
+            int port = ((WebServerApplicationContext) reactiveContext).getWebServer().getPort();
+            webTestClient = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+        }
+    }
+
+    @AfterAll
+    public static void stopReactiveApplication() {
+        if (reactiveContext != null) {
+            reactiveContext.close();
+            reactiveContext = null;
+        }
+    }
+
+    @Override
+    protected WebTestClient client() {
+        return webTestClient;
+    }
+
+    @Test
+    public void testIdsDoNotCollideWithJpaIds() {
+        Set<Long> ids = new HashSet<>();
+        Map<Long, String> reactiveIds = new HashMap<>();
+        for (int round = 0; round < 3; round++) {
+            // Enough JPA inserts to move past the block the JPA stack had drawn before.
+            for (int i = 0; i < 60; i++) {
+                Assertions.assertTrue(ids.add(genreRepository.save(new Genre(UniqueNames.of("Jpa"))).getId()));
+            }
+            String name = UniqueNames.of("Reactive");
+            long reactiveId = create("/genres", named(name));
+            Assertions.assertTrue(ids.add(reactiveId));
+            reactiveIds.put(reactiveId, name);
+        }
+
+        reactiveIds.forEach((id, name) -> Assertions.assertEquals(name, genreRepository.findById(id).orElseThrow().getName()));
+    }
+
+    /**
+     * Starts the reactive application on the in-memory database behind {@code dataSource}. The
+     * URL is read from a connection because {@code ${random.uuid}} resolves anew on every lookup.
+     */
+    static ConfigurableApplicationContext startOnSameDatabase(DataSource dataSource, String... extraArgs)
+            throws SQLException {
+        Matcher url;
+        String user;
+        try (Connection connection = dataSource.getConnection()) {
+            url = H2_MEMORY_URL.matcher(connection.getMetaData().getURL());
+            user = connection.getMetaData().getUserName();
+        }
+        Assertions.assertTrue(url.matches());
+        String[] args = {
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///" + url.group(1),
+                "--spring.r2dbc.username=" + user,
+                "--spring.r2dbc.password="
+        };
+        String[] all = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(extraArgs, 0, all, args.length, extraArgs.length);
+        return ReactiveBooksApplication.start(all);
+    }
+}
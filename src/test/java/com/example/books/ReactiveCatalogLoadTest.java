@@ -0,0 +1,170 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Drives both stacks with the same number of in-flight requests and checks how many threads and
+ * database connections each needed. Both connection pools are capped at {@value #POOL_SIZE}.
+ * <p>
+ * r2dbc-h2 runs statements on the calling thread, so throughput here says little about the
+ * reactive stack on a real network driver; the thread and connection counts are the point.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + ReactiveCatalogLoadTest.POOL_SIZE,
+        "server.tomcat.threads.max=" + ReactiveCatalogLoadTest.CONCURRENCY
+})
+public class ReactiveCatalogLoadTest {
+
+    static final int POOL_SIZE = 10;
+    static final int CONCURRENCY = 200;
+
+    private static final int BOOKS = 200;
+    private static final int REQUESTS = 2000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    private ConfigurableApplicationContext reactiveContext;
+
+    @AfterEach
+    public void stopReactiveApplication() {
+        if (reactiveContext != null) {
+            reactiveContext.close();
+        }
+    }
+
+    @Test
+    public void testThreadAndConnectionUsageAtHighConcurrency() throws Exception {
+        long[] ids = seed();
+        reactiveContext = ReactiveCatalogApiTest.startOnSameDatabase(dataSource,
+                "--spring.r2dbc.pool.max-size=" + POOL_SIZE);
+        int reactivePort = ((WebServerApplicationContext) reactiveContext).getWebServer().getPort();
+        ConnectionPool connectionPool = reactiveContext.getBean(ConnectionPool.class);
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        // Reactive first: Tomcat keeps the workers it started around afterwards.
+        Usage reactive = run(reactivePort, ids, () -> connectionPool.getMetrics().orElseThrow().acquiredSize());
+        Usage servlet = run(port, ids, () -> hikari.getHikariPoolMXBean().getActiveConnections());
+
+        Assertions.assertTrue(reactive.connections() <= POOL_SIZE, "connections: " + reactive.connections());
+        Assertions.assertTrue(servlet.connections() <= POOL_SIZE, "connections: " + servlet.connections());
+        Assertions.assertTrue(reactive.threads() < servlet.threads(),
+                "reactive +" + reactive.threads() + " threads, servlet +" + servlet.threads());
+    }
+
+    private Usage run(int port, long[] ids, IntSupplier activeConnections) throws InterruptedException {
+        ConnectionProvider connections = ConnectionProvider.builder("load-" + port)
+                .maxConnections(CONCURRENCY)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        Sampler sampler = new Sampler(activeConnections);
+        sampler.start();
+        // The warm-up counts towards the peaks: it is where Tomcat starts most of its workers.
+        send(client, ids, CONCURRENCY);
+        send(client, ids, REQUESTS);
+        sampler.interrupt();
+        sampler.join();
+        connections.disposeLater().block(Duration.ofSeconds(10));
+        return new Usage(threads.getPeakThreadCount() - baseline, sampler.peak);
+    }
+
+    private static void send(WebClient client, long[] ids, int requests) {
+        List<Integer> statuses = Flux.range(0, requests)
+                .flatMap(i -> client.get()
+                        .uri("/books/{id}", ids[ThreadLocalRandom.current().nextInt(ids.length)])
+                        .retrieve()
+                        .toBodilessEntity()
+                        .map(response -> response.getStatusCode().value()), CONCURRENCY)
+                .collectList()
+                .block(Duration.ofMinutes(5));
+        Assertions.assertNotNull(statuses);
+        Assertions.assertEquals(requests, statuses.size());
+        Assertions.assertTrue(statuses.stream().allMatch(status -> status == 200));
+    }
+
+    private long[] seed() {
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book("Book " + i, author, genre, 10.99, 5));
+        }
+        return bookRepository.saveAll(books).stream().mapToLong(Book::getId).toArray();
+    }
+
+    private record Usage(int threads, int connections) {
+    }
+
+    private static final class Sampler extends Thread {
+
+        private final IntSupplier activeConnections;
+        private volatile int peak;
+
+        Sampler(IntSupplier activeConnections) {
+            this.activeConnections = activeConnections;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peak = Math.max(peak, activeConnections.getAsInt());
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.books;
+
+import com.example.books.config.CacheConfig;
+import com.example.books.controller.SingleFlight;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thundering herd on one book: every round evicts it from the cache, as an update would, and then
+ * sends {@value #CLIENTS} concurrent {@code GET /books/{id}} against a database that takes
+ * {@value #STATEMENT_DELAY_MS} ms per statement. Compares the queries with and without read
+ * coalescing.
+ */
+public class ReadCoalescingLoadTest {
+
+    private static final int STATEMENT_DELAY_MS = 100;
+    private static final int CLIENTS = 100;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void testConcurrentLoadsShareOneCall() throws Exception {
+        SingleFlight<Long, Object> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Future<Object> leader = executor.submit(() -> flights.load(1L, () -> {
+            calls.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Object();
+        }));
+        loading.await();
+        List<Thread> followers = new ArrayList<>();
+        List<Future<Object>> joined = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            joined.add(executor.submit(() -> {
+                synchronized (followers) {
+                    followers.add(Thread.currentThread());
+                }
+                return flights.load(1L, () -> {
+                    calls.incrementAndGet();
+                    return new Object();
+                });
+            }));
+        }
+        // release only once every follower is parked on the leader's load
+        while (followers.size() < 7 || followers.stream().anyMatch(thread -> thread.getState() != Thread.State.WAITING)) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        Object value = leader.get();
+        for (Future<Object> follower : joined) {
+            Assertions.assertSame(value, follower.get());
+        }
+        Assertions.assertEquals(1, calls.get());
+
+        // once finished, the next load runs again
+        Assertions.assertNotSame(value, flights.load(1L, Object::new));
+        Assertions.assertThrows(IllegalStateException.class, () -> flights.load(2L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        executor.shutdown();
+    }
+
+    @Test
+    @Tag("load")
+    public void testThunderingHerdOnOneBook() throws Exception {
+        Result independent = run("independent", "--books.http.coalesce-reads=false");
+        Result coalesced = run("coalesced");
+
+        for (Result result : List.of(independent, coalesced)) {
+            Assertions.assertEquals(0, result.errors, result.mode + " errors");
+        }
+        Assertions.assertTrue(coalesced.queries <= ROUNDS * 2, "coalesced queries: " + coalesced.queries);
+        Assertions.assertTrue(coalesced.queries < independent.queries);
+    }
+
+    private Result run(String mode, String... extraArgs) throws Exception {
+        SlowDatabase slowDatabase = new SlowDatabase(STATEMENT_DELAY_MS);
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:herd-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + CLIENTS,
+                // keep the background jobs from adding statements to the count
+                "--books.changes.publish-interval-ms=600000",
+                "--books.changes.prune-interval-ms=600000",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        args.addAll(OwnCacheManager.args());
+        args.addAll(List.of(extraArgs));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BooksApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowDatabase))
+                .web(WebApplicationType.SERVLET)
+                .run(args.toArray(String[]::new))) {
+            Author author = context.getBean(AuthorRepository.class).save(new Author("Herd Author"));
+            Genre genre = context.getBean(GenreRepository.class).save(new Genre("Herd Genre"));
+            Book book = context.getBean(BookRepository.class).save(new Book("Featured", author, genre, 9.99, 5));
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/books/" + book.getId());
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            HttpClient client = HttpClient.newHttpClient();
+            send(client, uri).join();
+            AtomicInteger errors = new AtomicInteger();
+            int queries = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                Objects.requireNonNull(cacheManager.getCache(CacheConfig.BOOKS)).evict(book.getId());
+                int before = slowDatabase.statements.get();
+                List<CompletableFuture<?>> requests = new ArrayList<>(CLIENTS);
+                for (int i = 0; i < CLIENTS; i++) {
+                    requests.add(send(client, uri).whenComplete((status, failure) -> {
+                        if (failure != null || status != 200) {
+                            errors.incrementAndGet();
+                        }
+                    }));
+                }
+                CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+                queries += slowDatabase.statements.get() - before;
+            }
+            return new Result(mode, queries, errors.get());
+        }
+    }
+
+    private static CompletableFuture<Integer> send(HttpClient client, URI uri) {
+        return client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private record Result(String mode, int queries, int errors) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.books;
+
+import com.example.books.config.ReplicaRoutingDataSource;
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. "Replication" is an explicit copy of
+ * the primary, so anything written after {@link #replicate()} is only visible on the primary.
+ * The replica URL only opens an existing database, which lets a test take it down.
+ * <p>
+ * Reads go through the book list: it is not cached, so every request reaches a database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "books.datasource.replica.urls=" + ReadReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+        "books.datasource.replica.sticky-ms=60000",
+        "books.datasource.replica.connection-timeout-ms=250",
+        "books.datasource.replica.health-check-interval-ms=600000"
+})
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() throws SQLException, InterruptedException {
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        replicate();
+        awaitHealthy();
+    }
+
+    @Test
+    public void testGetRequestsReadFromReplica() throws Exception {
+        Book book = saveBook("Written After Replication");
+
+        Assertions.assertFalse(bookIds(null).contains(book.getId()));
+        replicate();
+        Assertions.assertTrue(bookIds(null).contains(book.getId()));
+    }
+
+    @Test
+    public void testWritesGoToPrimaryAndStickyClientsReadTheirWrites() throws Exception {
+        MvcResult created = mockMvc.perform(MockMvcRequestBuilders.post("/books")
+                        .content("{\"title\":\"Fresh Book\",\"price\":10.99,\"quantityAvailable\":5}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.cookie().exists("books-primary-until"))
+                .andReturn();
+        Cookie sticky = created.getResponse().getCookie("books-primary-until");
+        long id = JsonPath.<Number>read(created.getResponse().getContentAsString(), "$.id").longValue();
+
+        Assertions.assertTrue(bookIds(sticky).contains(id));
+        Assertions.assertFalse(bookIds(null).contains(id));
+        Assertions.assertFalse(bookIds(new Cookie("books-primary-until", "0")).contains(id));
+    }
+
+    @Test
+    public void testReadOnlyTransactionsOutsideRequestsUseReplica() {
+        authorRepository.save(new Author("Primary Only"));
+
+        transactionTemplate.setReadOnly(true);
+        long onReplica = transactionTemplate.execute(status -> authorRepository.count());
+        transactionTemplate.setReadOnly(false);
+        long onPrimary = transactionTemplate.execute(status -> authorRepository.count());
+
+        Assertions.assertEquals(onPrimary - 1, onReplica);
+    }
+
+    @Test
+    public void testReadsFailOverToPrimaryWhileReplicaIsDown() throws Exception {
+        Book book = saveBook("Failover");
+        execute(REPLICA_URL, "shutdown");
+        // Hikari hands out connections used within the last 500 ms without validating them.
+        Thread.sleep(600);
+
+        Assertions.assertTrue(bookIds(null).contains(book.getId()));
+        Assertions.assertEquals(Map.of("replica-0", false), routing.replicaHealth());
+
+        replicate();
+        awaitHealthy();
+        Book later = saveBook("After Recovery");
+        Assertions.assertFalse(bookIds(null).contains(later.getId()));
+    }
+
+    /**
+     * Stands in for the scheduled check, which the test interval keeps from running. Hikari may
+     * need a few attempts to refill a pool whose database went away.
+     */
+    private void awaitHealthy() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        routing.checkHealth();
+        while (routing.replicaHealth().containsValue(false) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            routing.checkHealth();
+        }
+        Assertions.assertEquals(Map.of("replica-0", true), routing.replicaHealth());
+    }
+
+    private Book saveBook(String title) {
+        return bookRepository.save(new Book(title, null, null, 10.99, 5));
+    }
+
+    private List<Long> bookIds(Cookie cookie) throws Exception {
+        var request = MockMvcRequestBuilders.get("/books").param("limit", "1000");
+        if (cookie != null) {
+            request.cookie(cookie);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        for (Object id : JsonPath.<List<Object>>read(body, "$[*].id")) {
+            ids.add(((Number) id).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Replaces the replica's content with a copy of the primary.
+     */
+    private static void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rows = statement.executeQuery("script")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
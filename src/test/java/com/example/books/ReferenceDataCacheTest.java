@@ -0,0 +1,116 @@
+package com.example.books;
+
+import com.example.books.controller.ListResponseCache;
+import com.example.books.model.Author;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.GenreRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReferenceDataCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ListResponseCache listCache;
+
+    private Statistics statistics;
+
+    /**
+     * The cache regions are shared by the application contexts of all test classes; the update
+     * timestamps are cleared too, so that writes other contexts were making do not void the
+     * query cache here.
+     */
+    @BeforeEach
+    public void setUp() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        statistics = sessionFactory.getStatistics();
+        sessionFactory.getCache().evictAll();
+        sessionFactory.getCache().getTimestampsCache().clear();
+    }
+
+    @Test
+    public void testRepeatedAuthorReadIsServedFromCache() throws Exception {
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        entityManagerFactory.getCache().evictAll();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(author.getName()));
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(Author.class.getName()).getHitCount());
+    }
+
+    @Test
+    public void testUpdateIsVisibleThroughCache() throws Exception {
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        String newName = UniqueNames.of("Mystery");
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres/" + genre.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(genre.getName()));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/" + genre.getId())
+                        .content("{\"name\":\"" + newName + "\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres/" + genre.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(newName));
+    }
+
+    @Test
+    public void testListQueryIsCachedAndInvalidatedByWrites() throws Exception {
+        genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres"));
+        statistics.clear();
+        // whether the list page cache answers the second GET depends on whether the change feed
+        // published the save in between; retire its page so that the query cache is always asked
+        listCache.catalogChanged();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+
+        String poetry = UniqueNames.of("Poetry");
+        mockMvc.perform(MockMvcRequestBuilders.post("/genres")
+                .content("{\"name\":\"" + poetry + "\"}")
+                .contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(MockMvcRequestBuilders.get("/genres"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.name == '" + poetry + "')]").exists());
+    }
+
+    @Test
+    public void testStatisticsAreExposed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/cache/stats"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.region == 'com.example.books.model.Author')]").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.region == 'default-query-results-region')]").exists());
+    }
+}
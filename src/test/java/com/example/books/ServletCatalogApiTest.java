@@ -0,0 +1,31 @@
+package com.example.books;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ServletCatalogApiTest extends CatalogApiContract {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The second-level cache is shared by the application contexts of all test classes, whose
+     * databases hand out the same ids; drop what the others left behind.
+     */
+    @BeforeEach
+    public void setUp() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Override
+    protected WebTestClient client() {
+        return webTestClient;
+    }
+}
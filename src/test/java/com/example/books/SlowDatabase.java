@@ -0,0 +1,67 @@
+package com.example.books;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delays every prepared statement, counts them, and tracks the highest number of connections open
+ * at once. Ordered first, so the concurrency limiter (if any) wraps it. Used by the load tests that
+ * start their own application.
+ */
+final class SlowDatabase implements BeanPostProcessor, Ordered {
+
+    final AtomicInteger statements = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final long statementDelayMillis;
+
+    SlowDatabase(long statementDelayMillis) {
+        this.statementDelayMillis = statementDelayMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return slow(super.getConnection());
+            }
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private Connection slow(Connection connection) {
+        peak.accumulateAndGet(open.incrementAndGet(), Math::max);
+        AtomicInteger closed = new AtomicInteger();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare")) {
+                        statements.incrementAndGet();
+                        Thread.sleep(statementDelayMillis);
+                    } else if (method.getName().equals("close") && closed.getAndIncrement() == 0) {
+                        open.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
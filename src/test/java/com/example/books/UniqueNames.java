@@ -0,0 +1,19 @@
+package com.example.books;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Author and genre names are unique ignoring case, and the tests that share an application
+ * context share its database, so fixtures that are created again and again number their names.
+ */
+final class UniqueNames {
+
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    private UniqueNames() {
+    }
+
+    static String of(String name) {
+        return name + " " + NEXT.incrementAndGet();
+    }
+}
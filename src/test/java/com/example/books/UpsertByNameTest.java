@@ -0,0 +1,121 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.GenreRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UpsertByNameTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Test
+    public void testUpsertCreatesOnceAndMatchesAnyCase() throws Exception {
+        long last = authorRepository.findAll().stream().mapToLong(Author::getId).max().orElse(0);
+        String newer = "/authors?after=" + last;
+        mockMvc.perform(MockMvcRequestBuilders.get(newer))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()").value(0));
+
+        MockHttpServletResponse created = mockMvc.perform(MockMvcRequestBuilders.put("/authors/by-name/Ada Lovelace"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Ada Lovelace"))
+                .andReturn().getResponse();
+        long id = authorRepository.findByName("ada lovelace").orElseThrow().getId();
+        Assertions.assertEquals("/authors/" + id, created.getHeader(HttpHeaders.LOCATION));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/by-name/ADA LOVELACE"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(id))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Ada Lovelace"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        // the insert bypasses Hibernate, yet the cached page is not served again
+        mockMvc.perform(MockMvcRequestBuilders.get(newer))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("Ada Lovelace"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/by-name/Cyberpunk"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/by-name/cyberpunk"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Cyberpunk"));
+        mockMvc.perform(MockMvcRequestBuilders.put("/genres/by-name/ "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testNamesDifferingOnlyInCaseAreRefused() throws Exception {
+        genreRepository.save(new Genre("Solarpunk"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/genres").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"SOLARPUNK\"}"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> genreRepository.save(new Genre("solarpunk")));
+        Assertions.assertTrue(genreRepository.findByName("sOlArPuNk").isPresent());
+    }
+
+    @Test
+    public void testConcurrentUpsertsCreateOneAuthor() throws Exception {
+        String name = "Herd Upsert Author";
+        int clients = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            String spelling = i % 2 == 0 ? name : name.toUpperCase();
+            responses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(MockMvcRequestBuilders.put("/authors/by-name/" + spelling))
+                        .andReturn().getResponse();
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        for (Future<MockHttpServletResponse> response : responses) {
+            int status = response.get().getStatus();
+            Assertions.assertTrue(status == 201 || status == 200, "status " + status);
+            created += status == 201 ? 1 : 0;
+            ids.add(response.get().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1"));
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, created);
+        Assertions.assertEquals(1, ids.size(), "every caller gets the same author: " + ids);
+        Author author = authorRepository.findByName(name).orElseThrow();
+        Assertions.assertEquals(ids.iterator().next(), author.getId().toString());
+        Assertions.assertEquals(1, authorRepository.findAll().stream()
+                .filter(candidate -> candidate.getName().equalsIgnoreCase(name)).count());
+    }
+}
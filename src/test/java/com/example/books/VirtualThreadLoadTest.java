@@ -0,0 +1,110 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mixed load against a database that takes {@value #STATEMENT_DELAY_MS} ms per statement: half
+ * the requests list books (database), half read a single cached book (no database). With a
+ * bounded platform pool the cached reads wait behind threads parked on the connection pool;
+ * with virtual threads only the database requests wait, on the concurrency limiter.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@Tag("load")
+public class VirtualThreadLoadTest {
+
+    private static final int STATEMENT_DELAY_MS = 200;
+    private static final int POOL_SIZE = 8;
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS = 600;
+
+    @Test
+    public void testVirtualThreadsAgainstPlatformPool() throws Exception {
+        Result platform = run("platform", "--server.tomcat.threads.max=16");
+        // wait for a permit as long as the platform run waits for a connection
+        Result virtual = run("virtual", "--spring.profiles.active=virtual-threads",
+                "--books.db.max-concurrency=" + POOL_SIZE, "--books.db.acquire-timeout-ms=30000");
+
+        for (Result result : List.of(platform, virtual)) {
+            Assertions.assertEquals(0, result.errors, result.mode + " errors");
+            Assertions.assertTrue(result.peakConnections <= POOL_SIZE, result.mode + " connections");
+        }
+    }
+
+    private Result run(String mode, String... extraArgs) throws Exception {
+        SlowDatabase slowDatabase = new SlowDatabase(STATEMENT_DELAY_MS);
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        args.addAll(OwnCacheManager.args());
+        args.addAll(List.of(extraArgs));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BooksApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowDatabase))
+                .web(WebApplicationType.SERVLET)
+                .run(args.toArray(String[]::new))) {
+            Author author = context.getBean(AuthorRepository.class).save(new Author("Load Author"));
+            Genre genre = context.getBean(GenreRepository.class).save(new Genre("Load Genre"));
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            for (int i = 0; i < 20; i++) {
+                bookRepository.save(new Book("Load " + i, author, genre, 9.99, 5));
+            }
+            Book cachedBook = bookRepository.save(new Book("Cached", author, genre, 9.99, 5));
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            URI cachedUri = URI.create(base + "/books/" + cachedBook.getId());
+            URI listUri = URI.create(base + "/books?limit=20");
+
+            HttpClient client = HttpClient.newHttpClient();
+            send(client, cachedUri).join();
+            slowDatabase.peak.set(0);
+
+            Semaphore inFlight = new Semaphore(CLIENTS);
+            AtomicInteger errors = new AtomicInteger();
+            List<CompletableFuture<?>> requests = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                boolean useDatabase = i % 2 == 0;
+                inFlight.acquire();
+                requests.add(send(client, useDatabase ? listUri : cachedUri).whenComplete((status, failure) -> {
+                    inFlight.release();
+                    if (failure != null || status != 200) {
+                        errors.incrementAndGet();
+                    }
+                }));
+            }
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+            return new Result(mode, errors.get(), slowDatabase.peak.get());
+        }
+    }
+
+    private static CompletableFuture<Integer> send(HttpClient client, URI uri) {
+        return client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private record Result(String mode, int errors, int peakConnections) {
+    }
+}
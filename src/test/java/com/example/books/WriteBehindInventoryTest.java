@@ -0,0 +1,207 @@
+package com.example.books;
+
+import com.example.books.model.Author;
+import com.example.books.model.Book;
+import com.example.books.model.CatalogChange;
+import com.example.books.model.Genre;
+import com.example.books.repository.AuthorRepository;
+import com.example.books.repository.BookRepository;
+import com.example.books.repository.GenreRepository;
+import com.example.books.service.CatalogChangeLog;
+import com.example.books.service.InventoryService;
+import com.example.books.service.WriteBehindInventoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest(properties = {
+        "books.inventory.write-behind.enabled=true",
+        "books.inventory.write-behind.flush-interval-ms=600000",
+        "books.inventory.write-behind.flush-threshold=100"
+})
+@AutoConfigureMockMvc
+public class WriteBehindInventoryTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 250;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @SpyBean
+    private CatalogChangeLog changeLog;
+
+    @Test
+    public void testWriteBehindServiceIsSelected() {
+        Assertions.assertInstanceOf(WriteBehindInventoryService.class, inventoryService);
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        Book book = saveBook(300);
+        AtomicInteger reserved = new AtomicInteger();
+
+        run(() -> {
+            if (inventoryService.reserve(book.getId(), 1) == InventoryService.Result.OK) {
+                reserved.incrementAndGet();
+            }
+        });
+        inventoryService.invalidate(book.getId());
+
+        Assertions.assertEquals(300, reserved.get());
+        Assertions.assertEquals(0, stockOf(book));
+    }
+
+    @Test
+    public void testPendingDeltaIsFlushedOnInvalidate() {
+        Book book = saveBook(10);
+
+        Assertions.assertEquals(InventoryService.Result.OK, inventoryService.reserve(book.getId(), 4));
+        Assertions.assertEquals(InventoryService.Result.OK, inventoryService.release(book.getId(), 1));
+        Assertions.assertEquals(InventoryService.Result.INSUFFICIENT_STOCK, inventoryService.reserve(book.getId(), 8));
+        Assertions.assertEquals(10, stockOf(book));
+
+        inventoryService.invalidate(book.getId());
+
+        Assertions.assertEquals(7, stockOf(book));
+    }
+
+    @Test
+    public void testFailedFlushIsKeptAndRetried() {
+        Book book = saveBook(10);
+        Assertions.assertEquals(InventoryService.Result.OK, inventoryService.reserve(book.getId(), 4));
+        Mockito.doThrow(new DataAccessResourceFailureException("database down")).when(changeLog)
+                .recordUpdate(ArgumentMatchers.eq(CatalogChange.Type.BOOK), ArgumentMatchers.eq(book.getId()),
+                        ArgumentMatchers.any());
+
+        inventoryService.invalidate(book.getId());
+
+        Assertions.assertEquals(10, stockOf(book));
+        Assertions.assertEquals(InventoryService.Result.INSUFFICIENT_STOCK, inventoryService.reserve(book.getId(), 7),
+                "the counter and its reservations are kept");
+
+        Mockito.reset(changeLog);
+        ((WriteBehindInventoryService) inventoryService).flushAll();
+
+        Assertions.assertEquals(6, stockOf(book));
+        Assertions.assertEquals(InventoryService.Result.OK, inventoryService.reserve(book.getId(), 6));
+        inventoryService.invalidate(book.getId());
+        Assertions.assertEquals(0, stockOf(book));
+    }
+
+    @Test
+    public void testThresholdTriggersFlush() {
+        Book book = saveBook(1000);
+
+        for (int i = 0; i < 100; i++) {
+            inventoryService.reserve(book.getId(), 1);
+        }
+
+        Assertions.assertEquals(900, stockOf(book));
+    }
+
+    @Test
+    public void testUpdateReplacesPendingStock() throws Exception {
+        Book book = saveBook(10);
+        inventoryService.reserve(book.getId(), 2);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + book.getId())
+                        .content("{\"title\":\"Restocked\",\"price\":1.0,\"quantityAvailable\":50}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/" + book.getId() + "/reserve"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        inventoryService.invalidate(book.getId());
+
+        Assertions.assertEquals(49, stockOf(book));
+    }
+
+    @Test
+    public void testUnknownBookIsNotFound() {
+        Assertions.assertEquals(InventoryService.Result.NOT_FOUND, inventoryService.reserve(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    public void testReservationsShareRowUpdates() throws Exception {
+        int ops = THREADS * OPS_PER_THREAD;
+        Book book = saveBook(ops);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long statements = statistics.getPrepareStatementCount();
+        run(() -> inventoryService.reserve(book.getId(), 1));
+        inventoryService.invalidate(book.getId());
+        long writeBehindStatements = statistics.getPrepareStatementCount() - statements;
+
+        Assertions.assertEquals(0, stockOf(book));
+        Assertions.assertTrue(writeBehindStatements <= ops / 50, "statements: " + writeBehindStatements);
+    }
+
+    private void run(Runnable operation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    operation.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private int stockOf(Book book) {
+        return bookRepository.findStockById(book.getId()).orElseThrow();
+    }
+
+    private Book saveBook(int stock) {
+        Author author = authorRepository.save(new Author(UniqueNames.of("John Doe")));
+        Genre genre = genreRepository.save(new Genre(UniqueNames.of("Fiction")));
+        return bookRepository.save(new Book("Hot Title", author, genre, 10.99, stock));
+    }
+}